@@ -0,0 +1,121 @@
+package bench;
+
+import engine.Board;
+import engine.Fen;
+import engine.Game;
+import engine.MoveGenerator;
+import engine.Perft;
+
+// Mikrobenchmarki silnika: java bench.EngineBenchmark [filtr nazwy]
+public class EngineBenchmark {
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 10;
+    private static final long ITERATION_NANOS = 200_000_000L;
+
+    private static final String MIDDLEGAME = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    private static final String IN_CHECK = "rnb1kbnr/pppp1ppp/8/4p3/5PPq/8/PPPPP2P/RNBQKBNR w KQkq - 1 3";
+
+    private static volatile long sink;
+
+    private interface Operation {
+        long run();
+    }
+
+    public static void main(String[] args) {
+        String filter = (args.length > 0) ? args[0] : "";
+
+        Board middlegame = new Board();
+        Fen.load(middlegame, MIDDLEGAME);
+        Game checked = new Game();
+        Fen.load(checked.getBoard(), IN_CHECK);
+        Game game = new Game();
+        Board scratch = game.getBoard();
+        Perft perft = new Perft();
+        Board start = new Board();
+        Fen.load(start, Fen.START_POSITION);
+
+        String[] pieceNames = {"pawn", "knight", "bishop", "rook", "queen", "king"};
+        for (int type = Board.PAWN; type <= Board.KING; type++) {
+            final int pieceType = type;
+            run(filter, "movegen." + pieceNames[type], () -> targetsOf(middlegame, pieceType));
+        }
+        run(filter, "movegen.all", () -> allTargets(middlegame));
+        run(filter, "isKingInCheck", () -> middlegame.isKingInCheck(Board.WHITE) ? 1 : 0);
+        // Game trzyma ruchy pozycji po kluczu - bez invalidateMoves() mierzone byłyby same trafienia (wersje .cached)
+        run(filter, "checkForCheckmate", () -> {
+            checked.invalidateMoves();
+            return checked.isCheckmate(Board.WHITE) ? 1 : 0;
+        });
+        run(filter, "checkForCheckmate.cached", () -> checked.isCheckmate(Board.WHITE) ? 1 : 0);
+        run(filter, "executeMove", () -> {
+            scratch.copyFrom(middlegame);
+            game.invalidateMoves();
+            return game.executeMove(Fen.parseSquare("e5"), Fen.parseSquare("f7"));
+        });
+        run(filter, "executeMove.cached", () -> {
+            scratch.copyFrom(middlegame);
+            return game.executeMove(Fen.parseSquare("e5"), Fen.parseSquare("f7"));
+        });
+        run(filter, "perft.start.3", () -> perft.perft(start, 3));
+        run(filter, "fen.load", () -> {
+            Fen.load(scratch, MIDDLEGAME);
+            return scratch.getKey();
+        });
+        run(filter, "fen.export", () -> Fen.toFen(middlegame).length());
+    }
+
+    private static long targetsOf(Board board, int type) {
+        long result = 0;
+        for (int side = Board.WHITE; side <= Board.BLACK; side++) {
+            long pieces = board.pieces(side, type);
+            while (pieces != 0) {
+                result ^= MoveGenerator.targets(board, Long.numberOfTrailingZeros(pieces));
+                pieces &= pieces - 1;
+            }
+        }
+        return result;
+    }
+
+    private static long allTargets(Board board) {
+        long result = 0;
+        for (int type = Board.PAWN; type <= Board.KING; type++) {
+            result ^= targetsOf(board, type);
+        }
+        return result;
+    }
+
+    private static void run(String filter, String name, Operation operation) {
+        if (!name.contains(filter)) return;
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            iteration(operation);
+        }
+
+        double best = Double.MAX_VALUE;
+        double total = 0;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            double nanosPerOp = iteration(operation);
+            best = Math.min(best, nanosPerOp);
+            total += nanosPerOp;
+        }
+
+        System.out.printf("%-26s %12.1f ns/op (best %.1f)%n", name, total / MEASURED_ITERATIONS, best);
+    }
+
+    private static double iteration(Operation operation) {
+        long operations = 0;
+        long result = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < 64; i++) {
+                result += operation.run();
+            }
+            operations += 64;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ITERATION_NANOS);
+
+        sink = result; // Wynik musi zostać użyty, żeby JIT nie usunął pracy
+        return (double) elapsed / operations;
+    }
+}
@@ -1,6 +1,10 @@
 package controller;
 
-import lib.figures.King;
+import engine.Board;
+import engine.GameJournal;
+import engine.Metrics;
+import engine.Move;
+import engine.PositionBook;
 import lib.figures.Pawn;
 import lib.interfaces.Figure;
 import lib.logic.FigureFactory;
@@ -14,15 +18,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import javafx.application.Platform;
 import javafx.scene.input.TransferMode;
 import javafx.scene.layout.GridPane;
-import javafx.scene.layout.HBox;
 import javafx.scene.shape.Rectangle;
-import javafx.stage.Modality;
-import javafx.stage.Stage;
-import javafx.scene.Node;
-import javafx.scene.Scene;
-import javafx.scene.control.Button;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.input.DataFormat;
@@ -34,39 +33,89 @@ public class BoardController {
     private static final int TILE_SIZE = 100;
     private static final int WIDTH = 8;
     private static final int HEIGHT = 8;
+    private static final long DEFAULT_THINK_MILLIS = 1000;
+    private static final String[] PIECE_NAMES = {"Pawn", "Knight", "Bishop", "Rook", "Queen", "King"};
 
     private GridPane gridPane;
     private GameStateManager gameStateManager;
     private FigureManager figureManager;
+    private long thinkMillis = DEFAULT_THINK_MILLIS;
 
 
     public BoardController() {
+        this(null, DEFAULT_THINK_MILLIS, 1);
+    }
+
+    // computerSide - kolor, którym gra komputer (null: dwóch graczy przy jednej planszy)
+    public BoardController(Color computerSide, long thinkMillis, int searchThreads) {
         this.gridPane = new GridPane();
-        this.gameStateManager = new GameStateManager(gridPane);
+        this.gameStateManager = new GameStateManager();
+        this.gameStateManager.setComputerSide(computerSide);
+        this.gameStateManager.setSearchThreads(searchThreads);
+        this.thinkMillis = thinkMillis;
         this.figureManager = new FigureManager(gameStateManager, gridPane);
         initializeBoard();
     }
 
+    // Statystyki ruchów z bazy pozycji pokazywane na planszy po każdej ocenie pozycji (null - bez bazy)
+    public void setPositionBook(PositionBook positionBook) {
+        gameStateManager.setPositionBook(positionBook);
+    }
+
+    // Ruchy z tej planszy dopisywane do dziennika partii (null - bez zapisu)
+    public void setJournal(GameJournal journal) {
+        gameStateManager.setJournal(journal);
+    }
+
+    // Po ustawieniu planszy: ocena pozycji (szach, baza), potem - jeśli pierwszy ruch należy do komputera - zaczyna liczyć
+    public void start() {
+        evaluatePosition();
+    }
+
+    // Ustawia planszę z FEN-a zamiast pozycji początkowej
+    public void loadPosition(String fen) {
+        Map<Position, Figure> figures = gameStateManager.loadFen(fen); // Błędny FEN rzuca, zanim cokolwiek się zmieni
+        gameStateManager.cancelEvaluation();
+        figureManager.clearFigures();
+
+        for (Figure figure : figures.values()) {
+            ImageView imageView = figureManager.addFigure(figure, figure.getPosition());
+            figureManager.setupDragNDropImageView(imageView, figure.getPosition());
+        }
+        updateFigureInteractivity();
+        gameStateManager.evaluatePosition(status -> {
+            figureManager.highlightCheck(status.king);
+            figureManager.showBookMoves(status.book);
+        });
+    }
+
+    public String exportPosition() {
+        return gameStateManager.toFen();
+    }
+
     private void initializeBoard() {
         // Initialize grid cells
         for (int y = 0; y < HEIGHT; y++) {
             for (int x = 0; x < WIDTH; x++) {
                 Color rectColor = ((x + y) % 2 == 0) ? Color.BEIGE : Color.SADDLEBROWN;
                 Rectangle rect = new Rectangle(TILE_SIZE, TILE_SIZE, rectColor);
-                Position position = new Position(x, y);
+                Position position = Position.of(x, y);
                 rect.setFill(rectColor);
-                gridPane.add(rect, x, y);
+                figureManager.addTile(rect, position);
                 setupDragNDropForRectangle(rect, position);
             }
         }
-        setupFigures(Color.BLACK);
-        setupFigures(Color.WHITE);
+        // Model dostaje obie strony naraz - initializeGame ustawia planszę silnika od zera
+        Map<Position, Figure> figures = new HashMap<>();
+        setupFigures(Color.BLACK, figures);
+        setupFigures(Color.WHITE, figures);
+        gameStateManager.initializeGame(figures);
+        updateFigureInteractivity();
     }
 
-    public void setupFigures(final Color color) {
+    public void setupFigures(final Color color, Map<Position, Figure> figures) {
         int backRow = (color == Color.WHITE) ? 0 : 7;
         int pawnRow = (color == Color.WHITE) ? 1 : 6;
-        Map<Position, Figure> figures = new HashMap<>();
         final Map<String, List<Integer>> figurePositions = Map.of(
             "Rook", List.of(0, 7),
             "Knight", List.of(1, 6),
@@ -79,7 +128,7 @@ public class BoardController {
         for (Map.Entry<String, List<Integer>> figure: figurePositions.entrySet()) {
             for (Integer raw: figure.getValue()) {
                 String figureName = figure.getKey();
-                Position position = new Position(raw, (figureName == "Pawn") ? pawnRow : backRow);
+                Position position = Position.of(raw, (figureName == "Pawn") ? pawnRow : backRow);
                 Figure newFigure = FigureFactory.createFigure(figureName, position, color);
                 ImageView imageView = figureManager.addFigure(newFigure, position);
 
@@ -87,14 +136,10 @@ public class BoardController {
                 figureManager.setupDragNDropImageView(imageView, position);
             }
         }
-
-        gameStateManager.initializeGame(figures);
     }
 
     public void addFigure(ImageView imageView, Position position, Color color) {
-        gridPane.add(imageView, position.getX(), position.getY());
-        imageView.setMouseTransparent(color != gameStateManager.getCurrentTurn()); // Aktywuj tylko figury, które mają turę
-        imageView.toFront();
+        figureManager.addFigureNode(imageView, position, color); // Warstwa koloru decyduje, czy figura jest aktywna
     }
 
     public GridPane getGridPane() {
@@ -113,114 +158,103 @@ public class BoardController {
             Dragboard db = event.getDragboard();
 
             if (!db.hasImage()) return;
+            long begin = Metrics.DROP.start();
     
             ImageView source = (ImageView) event.getGestureSource();
             Figure figure = (Figure) source.getUserData();
-            Position startPosition = figureManager.getPositionFromImageView(source);  // Pobierz pozycję początkową
+            Position startPosition = figure.getPosition();  // Pobierz pozycję początkową
             Position endPosition = position;
 
-            if (gameStateManager.isMoveAllowed(figure, endPosition) &&
-                gameStateManager.executeMove(figure, startPosition, endPosition)) {
-                updateFigureOnBoard(source, endPosition); // Aktualizacja pozycji w GUI
+            boolean moved = applyMove(figure, startPosition, endPosition);
+            if (moved) {
                 checkPawnPromotion(figure, endPosition); // Sprawdzenie promocji pionka
-
-                // Aktualizacja pozycji wieży przy roszadzie
-                if (figure instanceof King && Math.abs(startPosition.getX() - endPosition.getX()) == 2) {
-                    int posStartX = (endPosition.getX() > startPosition.getX()) ? 7 : 0; // short : long length
-                    int posEndX = (endPosition.getX() > startPosition.getX()) ? 1 : -1;
-
-                    Position rookStartPosition = new Position(posStartX, startPosition.getY());
-                    Position rookEndPosition = new Position(startPosition.getX() + posEndX, startPosition.getY());
-                    ImageView rookImageView = (ImageView) FigureManager.getNode(gridPane, rookStartPosition.getY(), rookStartPosition.getX());
-                    Figure rookFigure = (Figure) rookImageView.getUserData();
-
-                    rookFigure.setPosition(rookEndPosition);
-                    gameStateManager.executeMove(rookFigure, rookStartPosition, rookEndPosition);
-                    updateFigureOnBoard(rookImageView, rookEndPosition);
-                    updateFigureInteractivity();
-                }
-
                 event.setDropCompleted(true);
             }
 
             event.consume();
             figureManager.clearHighlights();
 
-            if (figure.getColor() == gameStateManager.getCurrentTurn()) {
-                gameStateManager.toggleTurn();
-            }
+            if (moved) evaluatePosition();
+            Metrics.DROP.stop(begin);
+        });
+    }
 
-            if(gameStateManager.checkGameOver(figure, position)) {
-                Image gameOverImage = new Image("file:pic/game/gameOver.jpg"); // Zakładamy, że obrazek znajduje się w katalogu głównym projektu
-                ImageView imageView = new ImageView(gameOverImage);
-                imageView.setFitWidth(400); // Ustaw szerokość obrazka
-                imageView.setFitHeight(200); // Ustaw wysokość obrazka
+    // Wykonuje ruch w modelu; obrazki (bicie, wieża przy roszadzie, zmiana tury) przenosi FigureManager ze zdarzeń modelu
+    private boolean applyMove(Figure figure, Position startPosition, Position endPosition) {
+        if (!gameStateManager.executeMove(figure, startPosition, endPosition)) { // Sprawdza legalność i oddaje turę przeciwnikowi
+            return false;
+        }
 
-                // Pozycjonowanie obrazka w centrum gridPane
-                gridPane.add(imageView, 2, 0, 8, 8); // Dodanie obrazka do gridPane, zakładając że ma 8 kolumn i 8 wierszy
-                GridPane.setColumnSpan(imageView, GridPane.REMAINING);
-                GridPane.setRowSpan(imageView, GridPane.REMAINING);
-            }
-        });
+        figureManager.highlightLastMove(startPosition, endPosition);
+        figureManager.showBookMoves(List.of()); // Statystyki nowej pozycji przyjdą z oceny po ruchu
+        return true;
     }
-    
-    private void updateFigureOnBoard(ImageView imageView, Position position) {
-        gridPane.getChildren().remove(imageView);
-        gridPane.add(imageView, position.getX(), position.getY());
-        imageView.setLayoutX(0);
-        imageView.setLayoutY(0);
+
+    // Komputer liczy w osobnym wątku na kopii planszy; ruch wykonuje się z powrotem w wątku JavaFX
+    private void startComputerMove() {
+        if (!gameStateManager.isComputerTurn()) return;
+
+        Board position = gameStateManager.snapshot();
+        Thread thread = new Thread(() -> {
+            int move = gameStateManager.findComputerMove(position, thinkMillis);
+            Platform.runLater(() -> playComputerMove(move));
+        }, "computer-player");
+        thread.setDaemon(true);
+        thread.start();
     }
 
-    private void updateFigureInteractivity() {
-        Map<Position, Figure> figures = new HashMap<>();
-        for (Node node : gridPane.getChildren()) {
-            if (node instanceof ImageView) {
-                Figure figure = (Figure) ((ImageView) node).getUserData();
-                if (figure == null) continue;
+    private void playComputerMove(int move) {
+        if (move == Move.NONE || !gameStateManager.isComputerTurn()) return;
 
-                node.setMouseTransparent(figure.getColor() != gameStateManager.getCurrentTurn());
+        Position startPosition = Position.fromSquare(Move.from(move));
+        Position endPosition = Position.fromSquare(Move.to(move));
+        Figure figure = gameStateManager.getFigureAt(startPosition);
+        if (figure == null || !applyMove(figure, startPosition, endPosition)) return;
 
-                figures.put(figure.getPosition(), figure);
-            }
+        if (Move.promotion(move) != Board.NO_PIECE) {
+            replacePawn(figure, endPosition, PIECE_NAMES[Move.promotion(move)]);
         }
-        gameStateManager.initializeGame(figures);
+
+        evaluatePosition();
+    }
+
+    // Szach i mat liczone w tle na kopii planszy; wynik wraca do wątku JavaFX, o ile nie padł już kolejny ruch
+    private void evaluatePosition() {
+        gameStateManager.evaluatePosition(status -> {
+            figureManager.highlightCheck(status.king);
+            figureManager.showBookMoves(status.book);
+            if (status.checkmate) {
+                showGameOver();
+            } else {
+                startComputerMove();
+            }
+        });
+    }
+
+    private void showGameOver() {
+        Image gameOverImage = new Image("file:pic/game/gameOver.jpg"); // Zakładamy, że obrazek znajduje się w katalogu głównym projektu
+        ImageView imageView = new ImageView(gameOverImage);
+        imageView.setFitWidth(400); // Ustaw szerokość obrazka
+        imageView.setFitHeight(200); // Ustaw wysokość obrazka
+
+        // Pozycjonowanie obrazka w centrum gridPane
+        gridPane.add(imageView, 2, 0, 8, 8); // Dodanie obrazka do gridPane, zakładając że ma 8 kolumn i 8 wierszy
+        GridPane.setColumnSpan(imageView, GridPane.REMAINING);
+        GridPane.setRowSpan(imageView, GridPane.REMAINING);
+    }
+    
+    private void updateFigureInteractivity() {
+        figureManager.updateFigureInteractivity();
     }
 
     private void promotePawn(Figure pawn, Position position) {
-        Stage promotionStage = new Stage();
-        promotionStage.initModality(Modality.APPLICATION_MODAL);
-        promotionStage.setTitle("Promote Pawn");
-
-        HBox hbox = new HBox();
-        hbox.setSpacing(10);
-        hbox.setStyle("-fx-background-color: beige; -fx-padding: 10;");
-
-        String[] pieceNames = {"Queen", "Rook", "Bishop", "Knight"};
-        for (String pieceName : pieceNames) {
-            Figure pieceFigure = FigureFactory.createFigure(pieceName, position, pawn.getColor());
-            Button button = new Button();
-
-            button.setGraphic(pieceFigure.getImageView());
-            button.setOnAction(e -> {
-                // Usuwanie pionka z planszy
-                ImageView pawnImageView = (ImageView) FigureManager.getNode(gridPane, pawn.getPosition().getY(), pawn.getPosition().getX());
-                gridPane.getChildren().remove(pawnImageView);
-
-                // Dodawanie nowej figury na planszę
-                Figure newFigure = FigureFactory.createFigure(pieceName, position, pawn.getColor());
-                ImageView newImageView = figureManager.addFigure(newFigure, position);
-                figureManager.setupDragNDropImageView(newImageView, position);
-
-                updateFigureOnBoard(newImageView, position);
-                promotionStage.close();
-            });
-
-            hbox.getChildren().add(button);
-        }
+        replacePawn(pawn, position, PIECE_NAMES[PromotionDialog.choose(pawn.getColor())]);
+    }
 
-        Scene scene = new Scene(hbox);
-        promotionStage.setScene(scene);
-        promotionStage.showAndWait();
+    // Zamianę obrazka piona na nową figurę robi FigureManager po zdarzeniu promocji
+    private void replacePawn(Figure pawn, Position position, String pieceName) {
+        Figure newFigure = FigureFactory.createFigure(pieceName, position, pawn.getColor());
+        gameStateManager.promote(newFigure, position);
     }
 
     private void checkPawnPromotion(Figure figure, Position position) {
@@ -0,0 +1,342 @@
+package controller;
+
+import engine.Board;
+import engine.Fen;
+import engine.GameJournal;
+import engine.Metrics;
+import engine.Move;
+import engine.PositionBook;
+import lib.figures.Pawn;
+import lib.figures.helper.PieceImages;
+import lib.interfaces.Figure;
+import lib.logic.FigureFactory;
+import lib.logic.Position;
+import model.GameStateManager;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javafx.application.Platform;
+import javafx.scene.Group;
+import javafx.scene.Parent;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.paint.Color;
+
+// Plansza rysowana na jednym Canvasie zamiast 64 prostokątów i obrazków figur: pola, figury, podświetlenia
+// i szach w jednym przebiegu. Przerysowywane są tylko pola oznaczone jako zmienione, graf sceny to jeden węzeł.
+public class CanvasBoardController implements GameStateManager.Listener {
+    private static final int TILE_SIZE = 100;
+    private static final int GRID_SIZE = 8;
+    private static final long DEFAULT_THINK_MILLIS = 1000;
+    private static final String[] PIECE_NAMES = {"Pawn", "Knight", "Bishop", "Rook", "Queen", "King"};
+
+    private static final Color LIGHT = Color.BEIGE;
+    private static final Color DARK = Color.SADDLEBROWN;
+    private static final Color ALLOWED = new Color(0, 1, 0, 0.3); // przezroczysty zielony
+    private static final Color CHECK = new Color(1, 0, 0, 0.3);
+    private static final Color BOOK = new Color(0, 0, 1, 0.2);
+
+    private final Canvas canvas = new Canvas(GRID_SIZE * TILE_SIZE, GRID_SIZE * TILE_SIZE);
+    private final GraphicsContext graphics = canvas.getGraphicsContext2D();
+    private final Group view = new Group(canvas);
+    private final GameStateManager gameStateManager = new GameStateManager();
+    private long thinkMillis = DEFAULT_THINK_MILLIS;
+
+    // Pola do przerysowania: zmiany zgłasza model zdarzeniami, resztę (przeciąganie, podświetlenia) widok
+    private long dirty = -1L;
+    private long highlights;
+    private int checkSquare = Board.NO_SQUARE;
+    private long bookSquares; // Pola docelowe ruchów z bazy pozycji, opisy w bookLabels
+    private final String[] bookLabels = new String[64];
+    private Image gameOverImage;
+
+    // Przeciągana figura rysowana pod kursorem
+    private Figure dragged;
+    private double dragX;
+    private double dragY;
+
+    public CanvasBoardController() {
+        this(null, DEFAULT_THINK_MILLIS, 1);
+    }
+
+    public CanvasBoardController(Color computerSide, long thinkMillis, int searchThreads) {
+        this.gameStateManager.setComputerSide(computerSide);
+        this.gameStateManager.setSearchThreads(searchThreads);
+        this.thinkMillis = thinkMillis;
+        this.gameStateManager.loadFen(Fen.START_POSITION);
+        this.gameStateManager.addListener(this);
+
+        canvas.setOnMousePressed(this::onMousePressed);
+        canvas.setOnMouseDragged(this::onMouseDragged);
+        canvas.setOnMouseReleased(this::onMouseReleased);
+        paint();
+    }
+
+    public void start() {
+        afterMove();
+    }
+
+    // Statystyki ruchów z bazy pozycji pokazywane na planszy po każdej ocenie pozycji (null - bez bazy)
+    public void setPositionBook(PositionBook positionBook) {
+        gameStateManager.setPositionBook(positionBook);
+    }
+
+    // Ruchy z tej planszy dopisywane do dziennika partii (null - bez zapisu)
+    public void setJournal(GameJournal journal) {
+        gameStateManager.setJournal(journal);
+    }
+
+    public void loadPosition(String fen) {
+        gameStateManager.loadFen(fen);
+        gameOverImage = null;
+        dirty = -1L;
+        setHighlights(0);
+        setCheck(null);
+        setBookMoves(List.of());
+        paint();
+        gameStateManager.evaluatePosition(status -> {
+            setCheck(status.king);
+            setBookMoves(status.book);
+            paint();
+        });
+    }
+
+    public String exportPosition() {
+        return gameStateManager.toFen();
+    }
+
+    public Parent getView() {
+        return view;
+    }
+
+    private void onMousePressed(MouseEvent event) {
+        int square = squareAt(event.getX(), event.getY());
+        if (gameOverImage != null || square == Board.NO_SQUARE) return;
+
+        Figure figure = gameStateManager.getFigureAt(Position.of(square));
+        if (figure == null || !gameStateManager.canMove(figure.getColor())) return;
+
+        long begin = Metrics.DRAG_DETECTED.start();
+        dragged = figure;
+        dragX = event.getX();
+        dragY = event.getY();
+        dirty |= Board.bit(square) | dragArea();
+        setHighlights(gameStateManager.getGame().getTargets(square));
+        paint();
+        Metrics.DRAG_DETECTED.stop(begin);
+    }
+
+    private void onMouseDragged(MouseEvent event) {
+        if (dragged == null) return;
+
+        dirty |= dragArea();
+        dragX = event.getX();
+        dragY = event.getY();
+        dirty |= dragArea();
+        paint();
+    }
+
+    private void onMouseReleased(MouseEvent event) {
+        if (dragged == null) return;
+
+        long begin = Metrics.DROP.start();
+        Figure figure = dragged;
+        dirty |= dragArea() | Board.bit(figure.getSquare());
+        dragged = null;
+        setHighlights(0);
+
+        int square = squareAt(event.getX(), event.getY());
+        Position endPosition = (square == Board.NO_SQUARE) ? null : Position.of(square);
+        if (endPosition != null && applyMove(figure, figure.getPosition(), endPosition)) {
+            paint(); // Ruch widoczny pod oknem promocji
+            if (figure instanceof Pawn && (endPosition.getY() == 0 || endPosition.getY() == GRID_SIZE - 1)) {
+                promote(figure, endPosition, PromotionDialog.choose(figure.getColor()));
+            }
+            afterMove();
+        }
+        paint();
+        Metrics.DROP.stop(begin);
+    }
+
+    // Model sam przesuwa wieżę przy roszadzie i zdejmuje piona bitego w przelocie - pola zgłasza w zdarzeniach
+    private boolean applyMove(Figure figure, Position startPosition, Position endPosition) {
+        return gameStateManager.executeMove(figure, startPosition, endPosition);
+    }
+
+    private void promote(Figure pawn, Position position, int type) {
+        Figure newFigure = FigureFactory.createFigure(PIECE_NAMES[type], position, pawn.getColor());
+        gameStateManager.promote(newFigure, position);
+    }
+
+    @Override
+    public void figureMoved(Figure figure, Position from, Position to) {
+        dirty |= Board.bit(from.getSquare()) | Board.bit(to.getSquare());
+    }
+
+    @Override
+    public void figureCaptured(Figure figure, Position position) {
+        dirty |= Board.bit(position.getSquare());
+    }
+
+    @Override
+    public void figurePromoted(Figure pawn, Figure promoted, Position position) {
+        dirty |= Board.bit(position.getSquare());
+    }
+
+    @Override
+    public void turnChanged(Color turn) {
+        // Tura nie zmienia wyglądu planszy - szach zaznacza afterMove
+    }
+
+    // Szach i mat liczone w tle na kopii planszy; wynik wraca do wątku JavaFX, o ile nie padł już kolejny ruch
+    private void afterMove() {
+        setCheck(null);
+        setBookMoves(List.of());
+        paint();
+        gameStateManager.evaluatePosition(status -> {
+            setCheck(status.king);
+            setBookMoves(status.book);
+            paint();
+            if (status.checkmate) {
+                showGameOver();
+            } else {
+                startComputerMove();
+            }
+        });
+    }
+
+    // Komputer liczy w osobnym wątku na kopii planszy; ruch wykonuje się z powrotem w wątku JavaFX
+    private void startComputerMove() {
+        if (!gameStateManager.isComputerTurn()) return;
+
+        Board position = gameStateManager.snapshot();
+        Thread thread = new Thread(() -> {
+            int move = gameStateManager.findComputerMove(position, thinkMillis);
+            Platform.runLater(() -> playComputerMove(move));
+        }, "computer-player");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void playComputerMove(int move) {
+        if (move == Move.NONE || !gameStateManager.isComputerTurn()) return;
+
+        Position startPosition = Position.fromSquare(Move.from(move));
+        Position endPosition = Position.fromSquare(Move.to(move));
+        Figure figure = gameStateManager.getFigureAt(startPosition);
+        if (figure == null || !applyMove(figure, startPosition, endPosition)) return;
+
+        if (Move.promotion(move) != Board.NO_PIECE) {
+            promote(figure, endPosition, Move.promotion(move));
+        }
+        afterMove();
+    }
+
+    private void showGameOver() {
+        gameOverImage = new Image("file:pic/game/gameOver.jpg");
+        paint();
+    }
+
+    // Szach oznaczany na królu strony, która ma ruch (null - brak szacha)
+    private void setCheck(Position king) {
+        int square = (king == null) ? Board.NO_SQUARE : king.getSquare();
+        if (square == checkSquare) return;
+
+        if (checkSquare != Board.NO_SQUARE) dirty |= Board.bit(checkSquare);
+        if (square != Board.NO_SQUARE) dirty |= Board.bit(square);
+        checkSquare = square;
+    }
+
+    private void setBookMoves(List<PositionBook.Entry> entries) {
+        dirty |= bookSquares;
+        bookSquares = 0;
+        Arrays.fill(bookLabels, null);
+        for (PositionBook.Entry entry : entries) {
+            int to = Move.to(entry.move);
+            bookLabels[to] = (bookLabels[to] == null) ? entry.label() : bookLabels[to] + "\n" + entry.label();
+            bookSquares |= Board.bit(to);
+        }
+        dirty |= bookSquares;
+    }
+
+    private void setHighlights(long squares) {
+        dirty |= highlights ^ squares;
+        highlights = squares;
+    }
+
+    // Pola, na które zachodzi obrazek przeciąganej figury (najwyżej cztery)
+    private long dragArea() {
+        int left = clamp((int) Math.floor((dragX - TILE_SIZE / 2.0) / TILE_SIZE));
+        int right = clamp((int) Math.floor((dragX + TILE_SIZE / 2.0 - 1) / TILE_SIZE));
+        int top = clamp((int) Math.floor((dragY - TILE_SIZE / 2.0) / TILE_SIZE));
+        int bottom = clamp((int) Math.floor((dragY + TILE_SIZE / 2.0 - 1) / TILE_SIZE));
+
+        long area = 0;
+        for (int y = top; y <= bottom; y++) {
+            for (int x = left; x <= right; x++) {
+                area |= Board.bit(Board.square(x, y));
+            }
+        }
+        return area;
+    }
+
+    private void paint() {
+        for (long squares = dirty; squares != 0; squares &= squares - 1) {
+            paintSquare(Long.numberOfTrailingZeros(squares));
+        }
+        dirty = 0;
+
+        if (dragged != null) {
+            graphics.drawImage(PieceImages.get(dragged.getColor(), dragged.getType()),
+                dragX - TILE_SIZE / 2.0, dragY - TILE_SIZE / 2.0, TILE_SIZE, TILE_SIZE);
+        }
+        if (gameOverImage != null) {
+            graphics.drawImage(gameOverImage, 2 * TILE_SIZE, 3 * TILE_SIZE, 400, 200);
+        }
+    }
+
+    private void paintSquare(int square) {
+        Position position = Position.of(square);
+        double x = position.getX() * TILE_SIZE;
+        double y = position.getY() * TILE_SIZE;
+
+        graphics.setFill(((position.getX() + position.getY()) % 2 == 0) ? LIGHT : DARK);
+        graphics.fillRect(x, y, TILE_SIZE, TILE_SIZE);
+
+        Figure figure = gameStateManager.getFigureAt(position);
+        if (figure != null && figure != dragged) {
+            graphics.drawImage(PieceImages.get(figure.getColor(), figure.getType()), x, y, TILE_SIZE, TILE_SIZE);
+        }
+
+        if ((bookSquares & Board.bit(square)) != 0) {
+            graphics.setFill(BOOK);
+            graphics.fillRect(x, y, TILE_SIZE, TILE_SIZE);
+            graphics.setFill(Color.BLACK);
+            String[] lines = bookLabels[square].split("\n");
+            for (int i = 0; i < lines.length; i++) {
+                graphics.fillText(lines[i], x + 4, y + 14 * (i + 1));
+            }
+        }
+        if ((highlights & Board.bit(square)) != 0) {
+            graphics.setFill(ALLOWED);
+            graphics.fillRect(x, y, TILE_SIZE, TILE_SIZE);
+        }
+        if (square == checkSquare) {
+            graphics.setFill(CHECK);
+            graphics.fillRect(x, y, TILE_SIZE, TILE_SIZE);
+        }
+    }
+
+    private static int squareAt(double x, double y) {
+        if (x < 0 || y < 0 || x >= GRID_SIZE * TILE_SIZE || y >= GRID_SIZE * TILE_SIZE) return Board.NO_SQUARE;
+        return Board.square((int) (x / TILE_SIZE), (int) (y / TILE_SIZE));
+    }
+
+    private static int clamp(int index) {
+        return Math.max(0, Math.min(GRID_SIZE - 1, index));
+    }
+
+}
@@ -0,0 +1,56 @@
+package controller;
+
+import engine.Board;
+import lib.figures.helper.PieceImages;
+import lib.interfaces.Figure;
+
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+import javafx.scene.paint.Color;
+import javafx.stage.Modality;
+import javafx.stage.Stage;
+
+// Okno wyboru figury przy promocji, wspólne dla widoku z węzłami i widoku na Canvasie
+public class PromotionDialog {
+
+    private PromotionDialog() {
+        throw new AssertionError("Just Helper!");
+    }
+
+    // Typ wybranej figury (Board.QUEEN itd.); zamknięcie okna bez wyboru daje hetmana
+    public static int choose(Color color) {
+        Stage promotionStage = new Stage();
+        promotionStage.initModality(Modality.APPLICATION_MODAL);
+        promotionStage.setTitle("Promote Pawn");
+
+        HBox hbox = new HBox();
+        hbox.setSpacing(10);
+        hbox.setStyle("-fx-background-color: beige; -fx-padding: 10;");
+
+        // Obrazki ze wspólnej pamięci - figura powstaje dopiero po wyborze
+        int[] chosen = {Board.QUEEN};
+        int[] pieceTypes = {Board.QUEEN, Board.ROOK, Board.BISHOP, Board.KNIGHT};
+        for (int pieceType : pieceTypes) {
+            ImageView pieceView = new ImageView(PieceImages.get(color, pieceType));
+            pieceView.setFitWidth(Figure.TILE_SIZE);
+            pieceView.setFitHeight(Figure.TILE_SIZE);
+            Button button = new Button();
+
+            button.setGraphic(pieceView);
+            button.setOnAction(e -> {
+                chosen[0] = pieceType;
+                promotionStage.close();
+            });
+
+            hbox.getChildren().add(button);
+        }
+
+        Scene scene = new Scene(hbox);
+        promotionStage.setScene(scene);
+        promotionStage.showAndWait();
+        return chosen[0];
+    }
+
+}
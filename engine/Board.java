@@ -0,0 +1,503 @@
+package engine;
+
+import java.util.Arrays;
+
+public class Board {
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    public static final int PAWN = 0;
+    public static final int KNIGHT = 1;
+    public static final int BISHOP = 2;
+    public static final int ROOK = 3;
+    public static final int QUEEN = 4;
+    public static final int KING = 5;
+
+    public static final int WHITE_KING_SIDE = 1;
+    public static final int WHITE_QUEEN_SIDE = 2;
+    public static final int BLACK_KING_SIDE = 4;
+    public static final int BLACK_QUEEN_SIDE = 8;
+
+    public static final int NO_SQUARE = -1;
+    public static final int MAX_HALFMOVE_CLOCK = (1 << 17) - 1; // 17 bitów w słowie cofania ruchu
+    public static final int NO_PIECE = -1;
+
+    private static final int INITIAL_UNDO_CAPACITY = 1024;
+
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_B = FILE_A << 1;
+    public static final long FILE_G = FILE_A << 6;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_3 = RANK_1 << 16;
+    public static final long RANK_6 = RANK_1 << 40;
+
+    // Prawa do roszady, które pozostają po ruchu z/na dane pole
+    private static final int[] CASTLING_MASK = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_MASK, WHITE_KING_SIDE | WHITE_QUEEN_SIDE | BLACK_KING_SIDE | BLACK_QUEEN_SIDE);
+        CASTLING_MASK[0] &= ~WHITE_QUEEN_SIDE;
+        CASTLING_MASK[7] &= ~WHITE_KING_SIDE;
+        CASTLING_MASK[4] &= ~(WHITE_KING_SIDE | WHITE_QUEEN_SIDE);
+        CASTLING_MASK[56] &= ~BLACK_QUEEN_SIDE;
+        CASTLING_MASK[63] &= ~BLACK_KING_SIDE;
+        CASTLING_MASK[60] &= ~(BLACK_KING_SIDE | BLACK_QUEEN_SIDE);
+    }
+
+    // Jeden bitboard na każdy typ figury i kolor: indeks = kolor * 6 + typ
+    private final long[] pieces = new long[12];
+    private final long[] occupancy = new long[2];
+    private long occupied;
+    private final int[] mailbox = new int[64];
+
+    // Ataki figury z każdego pola i suma ataków każdego koloru, aktualizowane przy każdej zmianie na planszy
+    private final long[] attacksFrom = new long[64];
+    private final long[] attackedBy = new long[2];
+
+    private int sideToMove = WHITE;
+    private int castlingRights;
+    private int enPassantSquare = NO_SQUARE;
+    private int halfmoveClock;
+    private int fullmoveNumber = 1;
+
+    // Klucz Zobrista pozycji, aktualizowany przyrostowo razem z planszą
+    private long key;
+
+    // Stos cofania: dla każdego wykonanego ruchu zbita figura, prawa do roszady, pole en passant i licznik półruchów;
+    // równolegle klucze pozycji sprzed ruchu (służą też do wykrywania powtórzeń)
+    private int[] undoStack = new int[INITIAL_UNDO_CAPACITY];
+    private long[] keyStack = new long[INITIAL_UNDO_CAPACITY];
+    private int undoSize;
+
+    public Board() {
+        Arrays.fill(mailbox, NO_PIECE);
+    }
+
+    public void clear() {
+        Arrays.fill(pieces, 0L);
+        Arrays.fill(occupancy, 0L);
+        occupied = 0L;
+        Arrays.fill(mailbox, NO_PIECE);
+        Arrays.fill(attacksFrom, 0L);
+        Arrays.fill(attackedBy, 0L);
+        sideToMove = WHITE;
+        castlingRights = 0;
+        enPassantSquare = NO_SQUARE;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        key = 0L;
+        undoSize = 0;
+    }
+
+    // Zmiana pionów może włączyć lub wyłączyć plik en passant w kluczu (Zobrist.enPassant)
+    public void put(int color, int type, int square) {
+        long enPassantKey = Zobrist.enPassant(this);
+        setPiece(piece(color, type), square);
+        refreshAttacks(bit(square));
+        key ^= enPassantKey ^ Zobrist.enPassant(this);
+    }
+
+    // Rozstawianie wielu figur naraz (FEN): mapy ataków liczone raz, w refreshAllAttacks()
+    void place(int piece, int square) {
+        setPiece(piece, square);
+    }
+
+    void refreshAllAttacks() {
+        refreshAttacks(occupied);
+    }
+
+    public int remove(int square) {
+        long enPassantKey = Zobrist.enPassant(this);
+        int piece = clearPiece(square);
+        if (piece != NO_PIECE) {
+            refreshAttacks(bit(square));
+        }
+        key ^= enPassantKey ^ Zobrist.enPassant(this);
+        return piece;
+    }
+
+    // Przesuwa figurę i zwraca zbitą figurę (albo NO_PIECE)
+    public int move(int from, int to) {
+        long enPassantKey = Zobrist.enPassant(this);
+        int captured = clearPiece(to);
+        int piece = clearPiece(from);
+        if (piece != NO_PIECE) {
+            setPiece(piece, to);
+        }
+        refreshAttacks(bit(from) | bit(to));
+        key ^= enPassantKey ^ Zobrist.enPassant(this);
+        return captured;
+    }
+
+    // Pełny ruch zgodnie z zasadami: roszada, bicie w przelocie, promocja (NO_PIECE gdy brak) i zmiana tury
+    public int play(int from, int to, int promotion) {
+        int piece = mailbox[from];
+        int captured = mailbox[to];
+        int flags = (captured == NO_PIECE) ? 0 : Move.CAPTURE;
+        if (typeOf(piece) == PAWN && to == enPassantSquare) {
+            flags = Move.EN_PASSANT | Move.CAPTURE;
+            captured = piece(opposite(colorOf(piece)), PAWN);
+        } else if (typeOf(piece) == KING && Math.abs(to - from) == 2) {
+            flags = Move.CASTLING;
+        } else if (typeOf(piece) == PAWN && Math.abs(to - from) == 16) {
+            flags = Move.DOUBLE_PUSH;
+        }
+
+        makeMove(Move.encode(from, to, piece, captured, promotion, flags));
+        return lastCaptured();
+    }
+
+    public void makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int piece = mailbox[from];
+        int side = colorOf(piece);
+        int capturedSquare = Move.isEnPassant(move) ? ((side == WHITE) ? to - 8 : to + 8) : to;
+        long enPassantKey = Zobrist.enPassant(this);
+        int captured = clearPiece(capturedSquare);
+        long changed = bit(from) | bit(to) | bit(capturedSquare);
+
+        if (undoSize == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, undoStack.length * 2);
+            keyStack = Arrays.copyOf(keyStack, keyStack.length * 2);
+        }
+        // Klucz sprzed ruchu (bicie jest już zdjęte z klucza, więc cofamy je)
+        keyStack[undoSize] = (captured == NO_PIECE) ? key : key ^ Zobrist.piece(captured, capturedSquare);
+        undoStack[undoSize++] = packUndo(captured, castlingRights, enPassantSquare, halfmoveClock);
+        key ^= enPassantKey ^ Zobrist.side();
+
+        clearPiece(from);
+        int promotion = Move.promotion(move);
+        setPiece((promotion == NO_PIECE) ? piece : piece(side, promotion), to);
+
+        if (Move.isCastling(move)) {
+            // Wieża przeskakuje obok króla
+            int rookFrom = (to > from) ? from + 3 : from - 4;
+            int rookTo = (to > from) ? from + 1 : from - 1;
+            setPiece(clearPiece(rookFrom), rookTo);
+            changed |= bit(rookFrom) | bit(rookTo);
+        }
+
+        boolean pawnMove = typeOf(piece) == PAWN;
+        enPassantSquare = (pawnMove && Math.abs(to - from) == 16) ? (from + to) / 2 : NO_SQUARE;
+        halfmoveClock = (pawnMove || captured != NO_PIECE) ? 0 : halfmoveClock + 1;
+        if (side == BLACK) fullmoveNumber++;
+        updateCastlingRights(from, to);
+        sideToMove = opposite(side);
+        key ^= Zobrist.enPassant(this);
+
+        refreshAttacks(changed);
+    }
+
+    public void unmakeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int side = opposite(sideToMove);
+        int undo = undoStack[--undoSize];
+
+        int piece = clearPiece(to);
+        setPiece((Move.promotion(move) == NO_PIECE) ? piece : piece(side, PAWN), from);
+        long changed = bit(from) | bit(to);
+
+        if (Move.isCastling(move)) {
+            int rookFrom = (to > from) ? from + 3 : from - 4;
+            int rookTo = (to > from) ? from + 1 : from - 1;
+            setPiece(clearPiece(rookTo), rookFrom);
+            changed |= bit(rookFrom) | bit(rookTo);
+        }
+
+        castlingRights = (undo >>> 4) & 15;
+        enPassantSquare = ((undo >>> 8) & 127) - 1;
+        halfmoveClock = undo >>> 15;
+
+        int captured = (undo & 15) - 1;
+        if (captured != NO_PIECE) {
+            int capturedSquare = Move.isEnPassant(move) ? ((side == WHITE) ? to - 8 : to + 8) : to;
+            setPiece(captured, capturedSquare);
+            changed |= bit(capturedSquare);
+        }
+
+        if (side == BLACK) fullmoveNumber--;
+        sideToMove = side;
+        key = keyStack[undoSize];
+
+        refreshAttacks(changed);
+    }
+
+    // Figura zbita w ostatnim ruchu (albo NO_PIECE)
+    public int lastCaptured() {
+        return (undoSize == 0) ? NO_PIECE : (undoStack[undoSize - 1] & 15) - 1;
+    }
+
+    // Pozycja powtórzyła się od ostatniego ruchu nieodwracalnego (bicie lub ruch pionem)
+    public boolean isRepetition() {
+        int limit = Math.min(halfmoveClock, undoSize);
+        for (int ply = 4; ply <= limit; ply += 2) {
+            if (keyStack[undoSize - ply] == key) return true;
+        }
+        return false;
+    }
+
+    private static int packUndo(int captured, int castlingRights, int enPassantSquare, int halfmoveClock) {
+        return (captured + 1) | (castlingRights << 4) | ((enPassantSquare + 1) << 8) | (halfmoveClock << 15);
+    }
+
+    public void updateCastlingRights(int from, int to) {
+        int rights = castlingRights & CASTLING_MASK[from] & CASTLING_MASK[to];
+        key ^= Zobrist.castling(castlingRights) ^ Zobrist.castling(rights);
+        castlingRights = rights;
+    }
+
+    public void copyFrom(Board other) {
+        System.arraycopy(other.pieces, 0, pieces, 0, pieces.length);
+        System.arraycopy(other.occupancy, 0, occupancy, 0, occupancy.length);
+        occupied = other.occupied;
+        System.arraycopy(other.mailbox, 0, mailbox, 0, mailbox.length);
+        System.arraycopy(other.attacksFrom, 0, attacksFrom, 0, attacksFrom.length);
+        System.arraycopy(other.attackedBy, 0, attackedBy, 0, attackedBy.length);
+        sideToMove = other.sideToMove;
+        castlingRights = other.castlingRights;
+        enPassantSquare = other.enPassantSquare;
+        halfmoveClock = other.halfmoveClock;
+        fullmoveNumber = other.fullmoveNumber;
+        key = other.key;
+
+        // Kopia przejmuje historię ruchów, więc cofanie i wykrywanie powtórzeń działają na niej dalej
+        if (undoStack.length < other.undoSize) {
+            undoStack = new int[other.undoStack.length];
+            keyStack = new long[other.keyStack.length];
+        }
+        System.arraycopy(other.undoStack, 0, undoStack, 0, other.undoSize);
+        System.arraycopy(other.keyStack, 0, keyStack, 0, other.undoSize);
+        undoSize = other.undoSize;
+    }
+
+    private void setPiece(int piece, int square) {
+        long bit = bit(square);
+        pieces[piece] |= bit;
+        occupancy[colorOf(piece)] |= bit;
+        occupied |= bit;
+        mailbox[square] = piece;
+        key ^= Zobrist.piece(piece, square);
+    }
+
+    private int clearPiece(int square) {
+        int piece = mailbox[square];
+        if (piece == NO_PIECE) return NO_PIECE;
+
+        long bit = bit(square);
+        pieces[piece] &= ~bit;
+        occupancy[colorOf(piece)] &= ~bit;
+        occupied &= ~bit;
+        mailbox[square] = NO_PIECE;
+        key ^= Zobrist.piece(piece, square);
+        return piece;
+    }
+
+    // Przelicza ataki tylko figur na zmienionych polach i figur liniowych, których promienie przez nie przechodzą
+    private void refreshAttacks(long changed) {
+        long queens = pieces[piece(WHITE, QUEEN)] | pieces[piece(BLACK, QUEEN)];
+        long rooks = pieces[piece(WHITE, ROOK)] | pieces[piece(BLACK, ROOK)] | queens;
+        long bishops = pieces[piece(WHITE, BISHOP)] | pieces[piece(BLACK, BISHOP)] | queens;
+
+        long affected = changed & occupied;
+        for (long squares = changed; squares != 0; squares &= squares - 1) {
+            int square = Long.numberOfTrailingZeros(squares);
+            affected |= (Attacks.rook(square, occupied) & rooks) | (Attacks.bishop(square, occupied) & bishops);
+            if ((occupied & bit(square)) == 0) {
+                attacksFrom[square] = 0L;
+            }
+        }
+
+        for (; affected != 0; affected &= affected - 1) {
+            int square = Long.numberOfTrailingZeros(affected);
+            attacksFrom[square] = attacksOf(mailbox[square], square);
+        }
+
+        attackedBy[WHITE] = unionOfAttacks(occupancy[WHITE]);
+        attackedBy[BLACK] = unionOfAttacks(occupancy[BLACK]);
+    }
+
+    private long unionOfAttacks(long squares) {
+        long attacks = 0L;
+        for (; squares != 0; squares &= squares - 1) {
+            attacks |= attacksFrom[Long.numberOfTrailingZeros(squares)];
+        }
+        return attacks;
+    }
+
+    private long attacksOf(int piece, int square) {
+        switch (typeOf(piece)) {
+            case PAWN:
+                return Attacks.pawn(colorOf(piece), square);
+            case KNIGHT:
+                return Attacks.knight(square);
+            case BISHOP:
+                return Attacks.bishop(square, occupied);
+            case ROOK:
+                return Attacks.rook(square, occupied);
+            case QUEEN:
+                return Attacks.queen(square, occupied);
+            default:
+                return Attacks.king(square);
+        }
+    }
+
+    public int pieceAt(int square) {
+        return mailbox[square];
+    }
+
+    public long pieces(int color, int type) {
+        return pieces[piece(color, type)];
+    }
+
+    public long occupancy(int color) {
+        return occupancy[color];
+    }
+
+    public long occupied() {
+        return occupied;
+    }
+
+    public int kingSquare(int color) {
+        long king = pieces[piece(color, KING)];
+        return king == 0 ? NO_SQUARE : Long.numberOfTrailingZeros(king);
+    }
+
+    public long attackedBy(int color) {
+        return attackedBy[color];
+    }
+
+    public long attacksFrom(int square) {
+        return attacksFrom[square];
+    }
+
+    // Figury danego koloru atakujące pole przy podanej zajętości planszy (bez użycia map ataków)
+    public long attackersTo(int square, int byColor, long occupied) {
+        long queens = pieces(byColor, QUEEN);
+        return (Attacks.pawn(opposite(byColor), square) & pieces(byColor, PAWN))
+            | (Attacks.knight(square) & pieces(byColor, KNIGHT))
+            | (Attacks.king(square) & pieces(byColor, KING))
+            | (Attacks.bishop(square, occupied) & (pieces(byColor, BISHOP) | queens))
+            | (Attacks.rook(square, occupied) & (pieces(byColor, ROOK) | queens));
+    }
+
+    public boolean isSquareAttacked(int square, int byColor) {
+        return (attackedBy[byColor] & bit(square)) != 0;
+    }
+
+    public boolean isKingInCheck(int color) {
+        int king = kingSquare(color);
+        return king != NO_SQUARE && isSquareAttacked(king, opposite(color));
+    }
+
+    public long getKey() {
+        return key;
+    }
+
+    public int getSideToMove() {
+        return sideToMove;
+    }
+
+    public void setSideToMove(int sideToMove) {
+        if (this.sideToMove == sideToMove) return;
+        key ^= Zobrist.enPassant(this) ^ Zobrist.side();
+        this.sideToMove = sideToMove;
+        key ^= Zobrist.enPassant(this);
+    }
+
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    public void setCastlingRights(int castlingRights) {
+        key ^= Zobrist.castling(this.castlingRights) ^ Zobrist.castling(castlingRights);
+        this.castlingRights = castlingRights;
+    }
+
+    public boolean hasCastlingRight(int right) {
+        return (castlingRights & right) != 0;
+    }
+
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public void setHalfmoveClock(int halfmoveClock) {
+        this.halfmoveClock = halfmoveClock;
+    }
+
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    public void setFullmoveNumber(int fullmoveNumber) {
+        this.fullmoveNumber = fullmoveNumber;
+    }
+
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    public void setEnPassantSquare(int enPassantSquare) {
+        key ^= Zobrist.enPassant(this);
+        this.enPassantSquare = enPassantSquare;
+        key ^= Zobrist.enPassant(this);
+    }
+
+    public static long knightAttacks(long knights) {
+        long l1 = (knights >>> 1) & ~FILE_H;
+        long l2 = (knights >>> 2) & ~(FILE_G | FILE_H);
+        long r1 = (knights << 1) & ~FILE_A;
+        long r2 = (knights << 2) & ~(FILE_A | FILE_B);
+        long h1 = l1 | r1;
+        long h2 = l2 | r2;
+        return (h1 << 16) | (h1 >>> 16) | (h2 << 8) | (h2 >>> 8);
+    }
+
+    public static long kingAttacks(long kings) {
+        long attacks = ((kings << 1) & ~FILE_A) | ((kings >>> 1) & ~FILE_H);
+        long row = kings | attacks;
+        return attacks | (row << 8) | (row >>> 8);
+    }
+
+    public static long pawnAttacks(int color, long pawns) {
+        if (color == WHITE) {
+            return ((pawns << 7) & ~FILE_H) | ((pawns << 9) & ~FILE_A);
+        }
+        return ((pawns >>> 9) & ~FILE_H) | ((pawns >>> 7) & ~FILE_A);
+    }
+
+    public static int piece(int color, int type) {
+        return color * 6 + type;
+    }
+
+    public static int colorOf(int piece) {
+        return piece / 6;
+    }
+
+    public static int typeOf(int piece) {
+        return piece % 6;
+    }
+
+    public static int opposite(int color) {
+        return color ^ 1;
+    }
+
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    public static int square(int x, int y) {
+        return y * 8 + x;
+    }
+
+    public static int file(int square) {
+        return square & 7;
+    }
+
+    public static int rank(int square) {
+        return square >>> 3;
+    }
+}
@@ -0,0 +1,131 @@
+package engine;
+
+// Ocena statyczna: materiał i tablice pól ("Simplified Evaluation Function" T. Michniewskiego).
+// Wynik w centypionach z punktu widzenia strony na ruchu.
+public class Evaluation {
+    public static final int[] PIECE_VALUE = {100, 320, 330, 500, 900, 0};
+
+    // Fazy gry: figury lekkie 1, wieża 2, hetman 4 - pełna pozycja początkowa to 24
+    private static final int[] PHASE = {0, 1, 1, 2, 4, 0};
+    private static final int MAX_PHASE = 24;
+
+    // Tablice z punktu widzenia białych, od pola a8 do h1 (tak jak się je zapisuje na diagramie)
+    private static final int[] PAWN_TABLE = {
+         0,   0,   0,   0,   0,   0,   0,   0,
+        50,  50,  50,  50,  50,  50,  50,  50,
+        10,  10,  20,  30,  30,  20,  10,  10,
+         5,   5,  10,  25,  25,  10,   5,   5,
+         0,   0,   0,  20,  20,   0,   0,   0,
+         5,  -5, -10,   0,   0, -10,  -5,   5,
+         5,  10,  10, -20, -20,  10,  10,   5,
+         0,   0,   0,   0,   0,   0,   0,   0
+    };
+    private static final int[] KNIGHT_TABLE = {
+        -50, -40, -30, -30, -30, -30, -40, -50,
+        -40, -20,   0,   0,   0,   0, -20, -40,
+        -30,   0,  10,  15,  15,  10,   0, -30,
+        -30,   5,  15,  20,  20,  15,   5, -30,
+        -30,   0,  15,  20,  20,  15,   0, -30,
+        -30,   5,  10,  15,  15,  10,   5, -30,
+        -40, -20,   0,   5,   5,   0, -20, -40,
+        -50, -40, -30, -30, -30, -30, -40, -50
+    };
+    private static final int[] BISHOP_TABLE = {
+        -20, -10, -10, -10, -10, -10, -10, -20,
+        -10,   0,   0,   0,   0,   0,   0, -10,
+        -10,   0,   5,  10,  10,   5,   0, -10,
+        -10,   5,   5,  10,  10,   5,   5, -10,
+        -10,   0,  10,  10,  10,  10,   0, -10,
+        -10,  10,  10,  10,  10,  10,  10, -10,
+        -10,   5,   0,   0,   0,   0,   5, -10,
+        -20, -10, -10, -10, -10, -10, -10, -20
+    };
+    private static final int[] ROOK_TABLE = {
+         0,   0,   0,   0,   0,   0,   0,   0,
+         5,  10,  10,  10,  10,  10,  10,   5,
+        -5,   0,   0,   0,   0,   0,   0,  -5,
+        -5,   0,   0,   0,   0,   0,   0,  -5,
+        -5,   0,   0,   0,   0,   0,   0,  -5,
+        -5,   0,   0,   0,   0,   0,   0,  -5,
+        -5,   0,   0,   0,   0,   0,   0,  -5,
+         0,   0,   0,   5,   5,   0,   0,   0
+    };
+    private static final int[] QUEEN_TABLE = {
+        -20, -10, -10,  -5,  -5, -10, -10, -20,
+        -10,   0,   0,   0,   0,   0,   0, -10,
+        -10,   0,   5,   5,   5,   5,   0, -10,
+         -5,   0,   5,   5,   5,   5,   0,  -5,
+          0,   0,   5,   5,   5,   5,   0,  -5,
+        -10,   5,   5,   5,   5,   5,   0, -10,
+        -10,   0,   5,   0,   0,   0,   0, -10,
+        -20, -10, -10,  -5,  -5, -10, -10, -20
+    };
+    private static final int[] KING_MIDDLE_TABLE = {
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -20, -30, -30, -40, -40, -30, -30, -20,
+        -10, -20, -20, -20, -20, -20, -20, -10,
+         20,  20,   0,   0,   0,   0,  20,  20,
+         20,  30,  10,   0,   0,  10,  30,  20
+    };
+    private static final int[] KING_END_TABLE = {
+        -50, -40, -30, -20, -20, -30, -40, -50,
+        -30, -20, -10,   0,   0, -10, -20, -30,
+        -30, -10,  20,  30,  30,  20, -10, -30,
+        -30, -10,  30,  40,  40,  30, -10, -30,
+        -30, -10,  30,  40,  40,  30, -10, -30,
+        -30, -10,  20,  30,  30,  20, -10, -30,
+        -30, -30,   0,   0,   0,   0, -30, -30,
+        -50, -30, -30, -30, -30, -30, -30, -50
+    };
+
+    // Materiał i pozycja dla każdej figury (bez króla) i pola, liczone raz (dla czarnych tablica odbita pionowo)
+    private static final int[][] SCORE = new int[12][64];
+
+    static {
+        int[][] tables = {PAWN_TABLE, KNIGHT_TABLE, BISHOP_TABLE, ROOK_TABLE, QUEEN_TABLE};
+        for (int type = Board.PAWN; type < Board.KING; type++) {
+            for (int square = 0; square < 64; square++) {
+                SCORE[Board.piece(Board.WHITE, type)][square] = PIECE_VALUE[type] + tables[type][square ^ 56];
+                SCORE[Board.piece(Board.BLACK, type)][square] = PIECE_VALUE[type] + tables[type][square];
+            }
+        }
+    }
+
+    private Evaluation() {
+        throw new AssertionError("Just Helper!");
+    }
+
+    public static int evaluate(Board board) {
+        int score = 0;
+        int phase = 0;
+
+        for (int type = Board.PAWN; type < Board.KING; type++) {
+            int white = Board.piece(Board.WHITE, type);
+            int black = Board.piece(Board.BLACK, type);
+            for (long pieces = board.pieces(Board.WHITE, type); pieces != 0; pieces &= pieces - 1) {
+                score += SCORE[white][Long.numberOfTrailingZeros(pieces)];
+                phase += PHASE[type];
+            }
+            for (long pieces = board.pieces(Board.BLACK, type); pieces != 0; pieces &= pieces - 1) {
+                score -= SCORE[black][Long.numberOfTrailingZeros(pieces)];
+                phase += PHASE[type];
+            }
+        }
+
+        // Król: płynne przejście od chowania się w środkowej fazie gry do centralizacji w końcówce
+        phase = Math.min(phase, MAX_PHASE);
+        score += kingScore(board.kingSquare(Board.WHITE), Board.WHITE, phase);
+        score -= kingScore(board.kingSquare(Board.BLACK), Board.BLACK, phase);
+
+        return (board.getSideToMove() == Board.WHITE) ? score : -score;
+    }
+
+    private static int kingScore(int square, int side, int phase) {
+        if (square == Board.NO_SQUARE) return 0;
+        int index = (side == Board.WHITE) ? square ^ 56 : square;
+        return (KING_MIDDLE_TABLE[index] * phase + KING_END_TABLE[index] * (MAX_PHASE - phase)) / MAX_PHASE;
+    }
+}
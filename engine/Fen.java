@@ -0,0 +1,179 @@
+package engine;
+
+public class Fen {
+    public static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final String PIECES = "PNBRQKpnbrqk";
+    private static final String CASTLING = "KQkq"; // Kolejność bitów praw do roszady w Board
+
+    private Fen() {
+        throw new AssertionError("Just Helper!");
+    }
+
+    // Parsowanie bez wyrażeń regularnych i bez dzielenia na tablicę napisów - wczytuje się miliony pozycji
+    public static void load(Board board, String fen) {
+        int[] fields = new int[12]; // Początek i koniec każdego z (najwyżej) sześciu pól
+        int count = 0;
+        int length = fen.length();
+        for (int i = 0; i < length; ) {
+            while (i < length && Character.isWhitespace(fen.charAt(i))) i++;
+            if (i == length) break;
+            if (count == 6) throw new IllegalArgumentException("Invalid FEN, extra fields: " + fen);
+            fields[2 * count] = i;
+            while (i < length && !Character.isWhitespace(fen.charAt(i))) i++;
+            fields[2 * count + 1] = i;
+            count++;
+        }
+        if (count < 4) {
+            throw new IllegalArgumentException("Invalid FEN: " + fen);
+        }
+
+        // Najpierw całe parsowanie i walidacja, plansza zmienia się dopiero potem - błędny FEN jej nie rusza
+        // Rozstawienie: dokładnie 8 rzędów po 8 pól, od 8. rzędu do 1., każdy od kolumny a
+        byte[] placement = new byte[64]; // Figura + 1 na polu, 0 - puste
+        int x = 0;
+        int y = 7;
+        for (int i = fields[0]; i < fields[1]; i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                if (x != 8 || y == 0) throw invalidPlacement(fen, fields);
+                x = 0;
+                y--;
+            } else if (c >= '1' && c <= '8') {
+                x += c - '0';
+                if (x > 8) throw invalidPlacement(fen, fields);
+            } else {
+                int piece = PIECES.indexOf(c);
+                if (piece < 0 || x > 7) throw invalidPlacement(fen, fields);
+                placement[Board.square(x++, y)] = (byte) (piece + 1);
+            }
+        }
+        if (x != 8 || y != 0) throw invalidPlacement(fen, fields);
+        if (count(placement, Board.WHITE, Board.KING) != 1 || count(placement, Board.BLACK, Board.KING) != 1) {
+            throw new IllegalArgumentException("Invalid FEN, each side needs exactly one king: " + fen);
+        }
+
+        char side = fen.charAt(fields[2]);
+        if (fields[3] - fields[2] != 1 || (side != 'w' && side != 'b')) {
+            throw new IllegalArgumentException("Invalid FEN side to move: " + fen.substring(fields[2], fields[3]));
+        }
+
+        // Roszada: "-" albo niepusty podzbiór "KQkq"; każde prawo wymaga króla i wieży na polach wyjściowych
+        String castling = fen.substring(fields[4], fields[5]);
+        int rights = 0;
+        if (!castling.equals("-")) {
+            for (int i = 0; i < castling.length(); i++) {
+                int right = CASTLING.indexOf(castling.charAt(i));
+                if (right < 0 || (rights & (1 << right)) != 0 || !hasCastlingPieces(placement, right)) {
+                    throw new IllegalArgumentException("Invalid FEN castling rights: " + castling);
+                }
+                rights |= 1 << right;
+            }
+        }
+
+        // Bicie w przelocie: pole za pionem, który właśnie ruszył się o dwa - 6. rząd przy ruchu białych, 3. przy czarnych
+        int enPassant = Board.NO_SQUARE;
+        if (fields[7] - fields[6] != 1 || fen.charAt(fields[6]) != '-') {
+            enPassant = parseSquare(fen.substring(fields[6], fields[7]));
+            if (!isEnPassantSquare(placement, enPassant, side == 'b' ? Board.BLACK : Board.WHITE)) {
+                throw new IllegalArgumentException("Invalid FEN en passant square: " + fen.substring(fields[6], fields[7]));
+            }
+        }
+
+        int halfmoveClock = count > 4 ? Integer.parseInt(fen, fields[8], fields[9], 10) : 0;
+        int fullmoveNumber = count > 5 ? Integer.parseInt(fen, fields[10], fields[11], 10) : 1;
+        if (halfmoveClock < 0 || halfmoveClock > Board.MAX_HALFMOVE_CLOCK || fullmoveNumber < 1) {
+            throw new IllegalArgumentException("Invalid FEN move counters: " + fen);
+        }
+
+        board.clear();
+        for (int square = 0; square < 64; square++) {
+            if (placement[square] != 0) board.place(placement[square] - 1, square);
+        }
+        board.refreshAllAttacks();
+        board.setSideToMove(side == 'b' ? Board.BLACK : Board.WHITE);
+        board.setCastlingRights(rights);
+        board.setEnPassantSquare(enPassant);
+        board.setHalfmoveClock(halfmoveClock);
+        board.setFullmoveNumber(fullmoveNumber);
+    }
+
+    private static int count(byte[] placement, int color, int type) {
+        int count = 0;
+        for (byte piece : placement) {
+            if (piece == color * 6 + type + 1) count++;
+        }
+        return count;
+    }
+
+    private static boolean hasCastlingPieces(byte[] placement, int right) {
+        int color = (right < 2) ? Board.WHITE : Board.BLACK;
+        int kingSquare = (color == Board.WHITE) ? 4 : 60;
+        int rookSquare = kingSquare + ((right % 2 == 0) ? 3 : -4);
+        return placement[kingSquare] == color * 6 + Board.KING + 1 && placement[rookSquare] == color * 6 + Board.ROOK + 1;
+    }
+
+    // Pole puste, przed nim pion przeciwnika po podwójnym ruchu, pole startowe tego piona też puste
+    private static boolean isEnPassantSquare(byte[] placement, int square, int sideToMove) {
+        int rank = (sideToMove == Board.WHITE) ? 5 : 2;
+        int forward = (sideToMove == Board.WHITE) ? -8 : 8; // W stronę piona, który się ruszył
+        int opponent = Board.opposite(sideToMove);
+        return Board.rank(square) == rank
+            && placement[square] == 0
+            && placement[square - forward] == 0
+            && placement[square + forward] == opponent * 6 + Board.PAWN + 1;
+    }
+
+    private static IllegalArgumentException invalidPlacement(String fen, int[] fields) {
+        return new IllegalArgumentException("Invalid FEN placement: " + fen.substring(fields[0], fields[1]));
+    }
+
+    public static String toFen(Board board) {
+        StringBuilder fen = new StringBuilder(90);
+        for (int y = 7; y >= 0; y--) {
+            int empty = 0;
+            for (int x = 0; x < 8; x++) {
+                int piece = board.pieceAt(Board.square(x, y));
+                if (piece == Board.NO_PIECE) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) fen.append((char) ('0' + empty));
+                empty = 0;
+                fen.append(PIECES.charAt(piece));
+            }
+            if (empty > 0) fen.append((char) ('0' + empty));
+            if (y > 0) fen.append('/');
+        }
+
+        fen.append(board.getSideToMove() == Board.WHITE ? " w " : " b ");
+
+        int rights = board.getCastlingRights();
+        if (rights == 0) fen.append('-');
+        if ((rights & Board.WHITE_KING_SIDE) != 0) fen.append('K');
+        if ((rights & Board.WHITE_QUEEN_SIDE) != 0) fen.append('Q');
+        if ((rights & Board.BLACK_KING_SIDE) != 0) fen.append('k');
+        if ((rights & Board.BLACK_QUEEN_SIDE) != 0) fen.append('q');
+
+        int enPassant = board.getEnPassantSquare();
+        fen.append(' ').append(enPassant == Board.NO_SQUARE ? "-" : squareName(enPassant));
+        fen.append(' ').append(board.getHalfmoveClock()).append(' ').append(board.getFullmoveNumber());
+        return fen.toString();
+    }
+
+    public static String squareName(int square) {
+        return "" + (char) ('a' + Board.file(square)) + (char) ('1' + Board.rank(square));
+    }
+
+    public static int parseSquare(String name) {
+        if (name.length() != 2) {
+            throw new IllegalArgumentException("Invalid square: " + name);
+        }
+        int x = name.charAt(0) - 'a';
+        int y = name.charAt(1) - '1';
+        if (x < 0 || x > 7 || y < 0 || y > 7) {
+            throw new IllegalArgumentException("Invalid square: " + name);
+        }
+        return Board.square(x, y);
+    }
+}
@@ -0,0 +1,105 @@
+package engine;
+
+public class Game {
+    private final Board board = new Board();
+    private final MoveList moves = new MoveList();
+    private boolean gameOver = false;
+
+    // Legalne ruchy liczone raz na pozycję (klucz Zobrista) - podświetlenie, sprawdzenie i wykonanie ruchu
+    // korzystają z tej samej listy. Tablica from*64+to daje ruch w O(1), przy promocji pierwszy jest hetman.
+    private final long[] targets = new long[64];
+    private final int[] moveTable = new int[64 * 64];
+    private long cachedKey;
+    private boolean cached;
+
+    public Board getBoard() {
+        return board;
+    }
+
+    public int getSideToMove() {
+        return board.getSideToMove();
+    }
+
+    public void toggleTurn() {
+        board.setSideToMove(Board.opposite(board.getSideToMove()));
+    }
+
+    // Lista tylko do odczytu, ważna do następnej zmiany pozycji
+    public MoveList legalMoves() {
+        if (cached && cachedKey == board.getKey()) return moves;
+
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            moveTable[Move.from(move) * 64 + Move.to(move)] = Move.NONE;
+            targets[Move.from(move)] = 0L;
+        }
+
+        MoveGenerator.legalMoves(board, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int index = Move.from(move) * 64 + Move.to(move);
+            if (moveTable[index] == Move.NONE) moveTable[index] = move;
+            targets[Move.from(move)] |= Board.bit(Move.to(move));
+        }
+        cachedKey = board.getKey();
+        cached = true;
+        return moves;
+    }
+
+    // Następne zapytanie wygeneruje ruchy od nowa, nawet przy tym samym kluczu (pomiary bez trafień w pamięć podręczną)
+    public void invalidateMoves() {
+        cached = false;
+    }
+
+    // Legalne pola docelowe figury z danego pola
+    public long getTargets(int square) {
+        legalMoves();
+        return targets[square];
+    }
+
+    public boolean isMoveAllowed(int from, int to) {
+        return findMove(from, to) != Move.NONE;
+    }
+
+    public int findMove(int from, int to) {
+        legalMoves();
+        return moveTable[from * 64 + to];
+    }
+
+    // Wykonuje legalny ruch (promocja domyślnie na hetmana), oddaje turę i zwraca wykonany ruch
+    public int executeMove(int from, int to) {
+        int move = findMove(from, to);
+        if (move == Move.NONE) {
+            throw new IllegalArgumentException("Illegal move: " + Fen.squareName(from) + Fen.squareName(to));
+        }
+        play(move);
+        return move;
+    }
+
+    // Wykonanie i cofnięcie ruchu bez kopiowania planszy - do przeszukiwania i walidacji
+    public int play(int move) {
+        board.makeMove(move);
+        return board.lastCaptured();
+    }
+
+    public void undo(int move) {
+        board.unmakeMove(move);
+    }
+
+    public boolean isKingInCheck(int side) {
+        return board.isKingInCheck(side);
+    }
+
+    // Szach-mat: strona na ruchu jest w szachu i nie ma żadnego legalnego ruchu
+    public boolean isCheckmate(int side) {
+        return side == board.getSideToMove() && board.isKingInCheck(side) && legalMoves().isEmpty();
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public void setGameOver(boolean gameOver) {
+        this.gameOver = gameOver;
+    }
+}
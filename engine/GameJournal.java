@@ -0,0 +1,293 @@
+package engine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// Dziennik partii: dopisywane ruchy po 16 bitów w pliku mapowanym do pamięci, obok mały indeks początków partii.
+//   <plik>        nagłówek (magic, długość danych), potem partie: [u16 długość FEN-a][FEN][ruchy u16...]
+//   <plik>.index  nagłówek (magic, liczba partii), potem po 16 bajtów na partię: [long przesunięcie][int półruchy][int 0]
+// Ruch u16: bity 0-5 skąd, 6-11 dokąd, 12-14 promocja (0 - brak). Pusty FEN oznacza pozycję początkową.
+// Pliki rosną z zapasem; o tym, ile jest ważne, decydują długość danych i liczba partii w nagłówkach.
+// Przesunięcia są intami (jedno mapowanie), więc każdy z plików ma najwyżej 2 GB.
+public class GameJournal implements Closeable {
+    private static final int DATA_MAGIC = 0x43484a31;  // "CHJ1"
+    private static final int INDEX_MAGIC = 0x43484931; // "CHI1"
+    private static final int DATA_HEADER = 16;
+    private static final int INDEX_HEADER = 16;
+    private static final int INDEX_ENTRY = 16;
+    private static final long INITIAL_DATA_CAPACITY = 1 << 20;
+    private static final long INITIAL_INDEX_CAPACITY = 1 << 16;
+
+    private final FileChannel data;
+    private final FileChannel index;
+    private final boolean readOnly;
+    private MappedByteBuffer dataMap;
+    private MappedByteBuffer indexMap;
+
+    private long dataSize;
+    private int games;
+    private int currentGame = -1; // Partia, do której trafiają ruchy (-1: następny ruch zaczyna nową)
+
+    private final MoveList replayMoves = new MoveList();
+
+    private GameJournal(FileChannel data, FileChannel index, boolean readOnly) throws IOException {
+        this.data = data;
+        this.index = index;
+        this.readOnly = readOnly;
+
+        if (readOnly) {
+            if (data.size() < DATA_HEADER || index.size() < INDEX_HEADER) throw new IOException("Not a game journal");
+            dataMap = map(data, data.size());
+            indexMap = map(index, index.size());
+            if (dataMap.getInt(0) != DATA_MAGIC || indexMap.getInt(0) != INDEX_MAGIC) {
+                throw new IOException("Not a game journal");
+            }
+            dataSize = dataMap.getLong(8);
+            games = indexMap.getInt(8);
+        } else if (data.size() == 0) {
+            dataMap = map(data, INITIAL_DATA_CAPACITY);
+            dataMap.putInt(0, DATA_MAGIC);
+            dataSize = DATA_HEADER;
+            dataMap.putLong(8, dataSize);
+            indexMap = map(index, INITIAL_INDEX_CAPACITY);
+            indexMap.putInt(0, INDEX_MAGIC);
+            indexMap.putInt(8, 0);
+        } else {
+            dataMap = map(data, data.size());
+            indexMap = map(index, Math.max(index.size(), INITIAL_INDEX_CAPACITY));
+            if (dataMap.getInt(0) != DATA_MAGIC || indexMap.getInt(0) != INDEX_MAGIC) {
+                throw new IOException("Not a game journal");
+            }
+            dataSize = dataMap.getLong(8);
+            games = indexMap.getInt(8);
+        }
+    }
+
+    // Do zapisu: tworzy pliki, jeśli ich nie ma. Jeden piszący na dziennik.
+    public static GameJournal open(Path path) throws IOException {
+        FileChannel data = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel index = FileChannel.open(indexPath(path), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new GameJournal(data, index, false);
+    }
+
+    // Tylko do odczytu: brak pliku to błąd, nic nie jest zapisywane - bezpieczne obok piszącej sesji.
+    // Widać partie zapisane do chwili otwarcia.
+    public static GameJournal openForRead(Path path) throws IOException {
+        FileChannel data = FileChannel.open(path, StandardOpenOption.READ);
+        FileChannel index;
+        try {
+            index = FileChannel.open(indexPath(path), StandardOpenOption.READ);
+        } catch (IOException e) {
+            data.close();
+            throw e;
+        }
+        try {
+            return new GameJournal(data, index, true);
+        } catch (IOException e) {
+            data.close();
+            index.close();
+            throw e;
+        }
+    }
+
+    private static Path indexPath(Path path) {
+        return path.resolveSibling(path.getFileName() + ".index");
+    }
+
+    // Zaczyna nową partię od podanej pozycji (null lub pozycja początkowa zapisuje się jako pusty FEN)
+    public int startGame(String fen) throws IOException {
+        checkWritable();
+        byte[] text = (fen == null || fen.equals(Fen.START_POSITION)) ? new byte[0] : fen.getBytes(StandardCharsets.US_ASCII);
+        long offset = dataSize;
+        ensureData(2 + text.length);
+        dataMap.putShort((int) dataSize, (short) text.length);
+        dataMap.put((int) dataSize + 2, text);
+        setDataSize(dataSize + 2 + text.length);
+
+        ensureIndex(games + 1);
+        int entry = INDEX_HEADER + games * INDEX_ENTRY;
+        indexMap.putLong(entry, offset);
+        indexMap.putInt(entry + 8, 0);
+        indexMap.putInt(entry + 12, 0);
+        currentGame = games++;
+        indexMap.putInt(8, games);
+        return currentGame;
+    }
+
+    // Kolejne ruchy bieżącej partii
+    public void append(int move) throws IOException {
+        checkWritable();
+        if (currentGame < 0) throw new IllegalStateException("No game started");
+
+        ensureData(2);
+        dataMap.putShort((int) dataSize, encode(move));
+        setDataSize(dataSize + 2);
+
+        int entry = INDEX_HEADER + currentGame * INDEX_ENTRY;
+        indexMap.putInt(entry + 8, indexMap.getInt(entry + 8) + 1);
+    }
+
+    // Promocja wybierana po wykonaniu ruchu: poprawia typ figury w ostatnim zapisanym ruchu
+    public void setLastPromotion(int type) {
+        if (readOnly || currentGame < 0 || getPlies(currentGame) == 0) return;
+        int position = (int) dataSize - 2;
+        int move = dataMap.getShort(position) & 0x0FFF;
+        dataMap.putShort(position, (short) (move | (type << 12)));
+    }
+
+    // Następny ruch zacznie nową partię
+    public void endGame() {
+        currentGame = -1;
+    }
+
+    public int getGameCount() {
+        return games;
+    }
+
+    // Licznik z indeksu, przycięty do danych widocznych w tym otwarciu (piszący mógł od tego czasu dopisać ruchy)
+    public int getPlies(int game) {
+        int plies = indexMap.getInt(INDEX_HEADER + game * INDEX_ENTRY + 8);
+        long available = (dataSize - movesStart(game)) / 2;
+        return (int) Math.max(0, Math.min(plies, available));
+    }
+
+    public String getStartFen(int game) {
+        int offset = (int) indexMap.getLong(INDEX_HEADER + game * INDEX_ENTRY);
+        int length = dataMap.getShort(offset) & 0xFFFF;
+        if (length == 0) return Fen.START_POSITION;
+
+        byte[] text = new byte[length];
+        dataMap.get(offset + 2, text);
+        return new String(text, StandardCharsets.US_ASCII);
+    }
+
+    public int getMove(int game, int ply) {
+        return dataMap.getShort(movesStart(game) + ply * 2) & 0xFFFF;
+    }
+
+    private int movesStart(int game) {
+        int offset = (int) indexMap.getLong(INDEX_HEADER + game * INDEX_ENTRY);
+        return offset + 2 + (dataMap.getShort(offset) & 0xFFFF);
+    }
+
+    // Odtwarza partię do podanego półruchu na planszy board; zwraca liczbę wykonanych półruchów
+    public int replay(int game, int plies, Board board) {
+        Fen.load(board, getStartFen(game));
+        int count = Math.min(plies, getPlies(game));
+        for (int ply = 0; ply < count; ply++) {
+            int move = decode(board, replayMoves, getMove(game, ply));
+            if (move == Move.NONE) return ply; // Uszkodzony zapis - zostaje pozycja przed nim
+            board.makeMove(move);
+        }
+        return count;
+    }
+
+    public static short encode(int move) {
+        int promotion = Move.promotion(move);
+        return (short) (Move.from(move) | (Move.to(move) << 6) | ((promotion == Board.NO_PIECE ? 0 : promotion) << 12));
+    }
+
+    // Ruch u16 zamieniony z powrotem na pełny ruch silnika przez dopasowanie do legalnych ruchów pozycji
+    public static int decode(Board board, MoveList legal, int encoded) {
+        MoveGenerator.legalMoves(board, legal);
+        return find(legal, encoded);
+    }
+
+    // Dopasowanie do już wygenerowanej listy legalnych ruchów (Move.NONE - brak takiego ruchu)
+    public static int find(MoveList legal, int encoded) {
+        int from = encoded & 63;
+        int to = (encoded >>> 6) & 63;
+        int promotion = (encoded >>> 12) & 7;
+        for (int i = 0; i < legal.size(); i++) {
+            int move = legal.get(i);
+            int movePromotion = Move.promotion(move);
+            if (Move.from(move) == from && Move.to(move) == to
+                && (movePromotion == Board.NO_PIECE ? 0 : movePromotion) == promotion) {
+                return move;
+            }
+        }
+        return Move.NONE;
+    }
+
+    public void flush() {
+        if (readOnly) return;
+        dataMap.force();
+        indexMap.force();
+    }
+
+    // Bez obcinania zapasu: mapowania zostają ważne aż do odśmiecenia bufora, a obcięcie zmapowanego pliku
+    // kończy się błędem (Windows) albo SIGBUS przy późniejszym dostępie - ważną długość i tak trzymają nagłówki
+    @Override
+    public void close() throws IOException {
+        flush();
+        dataMap = null;
+        indexMap = null;
+        data.close();
+        index.close();
+    }
+
+    private void checkWritable() {
+        if (readOnly) throw new IllegalStateException("Game journal opened for reading");
+    }
+
+    private void setDataSize(long size) {
+        dataSize = size;
+        dataMap.putLong(8, size);
+    }
+
+    // Mapowanie rośnie dwukrotnie, gdy brakuje miejsca - dopisywanie to zapis do pamięci
+    private void ensureData(int bytes) throws IOException {
+        long needed = dataSize + bytes;
+        if (needed <= dataMap.capacity()) return;
+        if (needed > Integer.MAX_VALUE) throw new IOException("Game journal full: moves file would exceed 2 GB");
+        dataMap = map(data, Math.min(Integer.MAX_VALUE, Math.max(needed, (long) dataMap.capacity() * 2)));
+    }
+
+    private void ensureIndex(int entries) throws IOException {
+        long needed = INDEX_HEADER + (long) entries * INDEX_ENTRY;
+        if (needed <= indexMap.capacity()) return;
+        if (needed > Integer.MAX_VALUE) throw new IOException("Game journal full: index file would exceed 2 GB");
+        indexMap = map(index, Math.min(Integer.MAX_VALUE, Math.max(needed, (long) indexMap.capacity() * 2)));
+    }
+
+    private MappedByteBuffer map(FileChannel channel, long size) throws IOException {
+        MappedByteBuffer buffer = channel.map(readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    // Użycie: java engine.GameJournal <plik> [numer partii]
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: java engine.GameJournal <file> [game]");
+            return;
+        }
+
+        try (GameJournal journal = GameJournal.openForRead(Paths.get(args[0]))) {
+            System.out.println("Games: " + journal.getGameCount());
+            if (args.length < 2) return;
+
+            int game = Integer.parseInt(args[1]);
+            Board board = new Board();
+            Fen.load(board, journal.getStartFen(game));
+
+            StringBuilder moves = new StringBuilder();
+            for (int ply = 0; ply < journal.getPlies(game); ply++) {
+                int move = decode(board, journal.replayMoves, journal.getMove(game, ply));
+                if (move == Move.NONE) break;
+                moves.append(Move.toString(move)).append(' ');
+                board.makeMove(move);
+            }
+            System.out.println("Start: " + journal.getStartFen(game));
+            System.out.println("Moves: " + moves.toString().trim());
+            System.out.println("End:   " + Fen.toFen(board));
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package engine;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// Pomiary gorących ścieżek: liczniki i histogramy czasów na LongAdderach, zdarzenia JFR, JMX (chess:type=Metrics)
+// i okresowy zrzut na stderr (stdout należy do UCI). Włączane przy starcie: -Dchess.metrics=true (albo --metrics w Chess),
+// co ile sekund zrzut: -Dchess.metrics.interval. Wyłączone kosztują jedno sprawdzenie stałej, które JIT usuwa.
+public class Metrics {
+    public static final boolean ENABLED = Boolean.getBoolean("chess.metrics");
+    private static final long DUMP_SECONDS = Long.getLong("chess.metrics.interval", 60);
+
+    public static final Timer MOVE_GENERATION = new Timer("moveGeneration");
+    public static final Timer KING_IN_CHECK = new Timer("isKingInCheck");
+    public static final Timer CHECKMATE = new Timer("checkForCheckmate");
+    public static final Timer POSITION_EVALUATION = new Timer("positionEvaluation");
+    public static final Timer DRAG_DETECTED = new Timer("dragDetected");
+    public static final Timer DROP = new Timer("drop");
+    private static final Timer[] TIMERS = {MOVE_GENERATION, KING_IN_CHECK, CHECKMATE, POSITION_EVALUATION, DRAG_DETECTED, DROP};
+
+    private static final LongAdder GENERATED_MOVES = new LongAdder();
+
+    static {
+        if (ENABLED) {
+            registerBean();
+            startDump();
+        }
+    }
+
+    private Metrics() {
+        throw new AssertionError("Just Helper!");
+    }
+
+    public static void moveGeneration(int moves, long begin) {
+        if (!ENABLED) return;
+        GENERATED_MOVES.add(moves);
+        MOVE_GENERATION.stop(begin);
+    }
+
+    public static String report() {
+        StringBuilder report = new StringBuilder();
+        report.append("metrics generatedMoves=").append(GENERATED_MOVES.sum());
+        for (Timer timer : TIMERS) {
+            if (timer.getCount() == 0) continue;
+            report.append(System.lineSeparator()).append("metrics ").append(timer);
+        }
+        return report.toString();
+    }
+
+    public static void reset() {
+        GENERATED_MOVES.reset();
+        for (Timer timer : TIMERS) {
+            timer.reset();
+        }
+    }
+
+    // Czas jednej operacji: licznik, suma, maksimum i histogram z percentylami
+    public static final class Timer {
+        // Kubełki jak w HdrHistogramie: potęga dwójki podzielona na 8 części (błąd do 12,5%), wartości w ns
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+        private final String name;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+        Timer(String name) {
+            this.name = name;
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        // Użycie: long begin = timer.start(); ... timer.stop(begin);
+        public long start() {
+            return ENABLED ? System.nanoTime() : 0L;
+        }
+
+        public void stop(long begin) {
+            if (!ENABLED) return;
+            record(System.nanoTime() - begin);
+        }
+
+        public void record(long nanos) {
+            if (!ENABLED) return;
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            buckets[bucket(nanos)].increment();
+
+            TimerEvent event = new TimerEvent();
+            if (event.shouldCommit()) {
+                event.timer = name;
+                event.nanos = nanos;
+                event.commit();
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        public double getMeanNanos() {
+            long n = count.sum();
+            return (n == 0) ? 0 : (double) totalNanos.sum() / n;
+        }
+
+        // Górna granica kubełka, w którym wypada percentyl (0..100)
+        public long percentileNanos(double percentile) {
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets[i].sum();
+                total += counts[i];
+            }
+            if (total == 0) return 0;
+
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(lowerBound(i + 1) - 1, getMaxNanos());
+            }
+            return getMaxNanos();
+        }
+
+        void reset() {
+            count.reset();
+            totalNanos.reset();
+            maxNanos.reset();
+            for (LongAdder bucket : buckets) {
+                bucket.reset();
+            }
+        }
+
+        private static int bucket(long value) {
+            if (value < SUB_BUCKETS) return (int) Math.max(0, value);
+            int magnitude = 63 - Long.numberOfLeadingZeros(value);
+            return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + (int) ((value >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        }
+
+        private static long lowerBound(int bucket) {
+            if (bucket < SUB_BUCKETS) return bucket;
+            int magnitude = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            if (magnitude > 62) return Long.MAX_VALUE;
+            return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (magnitude - SUB_BUCKET_BITS);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s count=%d mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus max=%.1fus",
+                name, getCount(), getMeanNanos() / 1e3, percentileNanos(50) / 1e3, percentileNanos(90) / 1e3,
+                percentileNanos(99) / 1e3, getMaxNanos() / 1e3);
+        }
+    }
+
+    @Name("chess.Timer")
+    @Label("Chess Timer")
+    @Category("Chess")
+    @StackTrace(false)
+    static class TimerEvent extends jdk.jfr.Event {
+        @Label("Timer")
+        String timer;
+
+        @Label("Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        long nanos;
+    }
+
+    public interface MetricsMXBean {
+        long getGeneratedMoves();
+
+        long getMoveGenerations();
+
+        String getReport();
+
+        double percentileMicros(String timer, double percentile);
+
+        void reset();
+    }
+
+    private static final class Bean implements MetricsMXBean {
+        @Override
+        public long getGeneratedMoves() {
+            return GENERATED_MOVES.sum();
+        }
+
+        @Override
+        public long getMoveGenerations() {
+            return MOVE_GENERATION.getCount();
+        }
+
+        @Override
+        public String getReport() {
+            return report();
+        }
+
+        @Override
+        public double percentileMicros(String timer, double percentile) {
+            for (Timer candidate : TIMERS) {
+                if (candidate.getName().equals(timer)) return candidate.percentileNanos(percentile) / 1e3;
+            }
+            throw new IllegalArgumentException("Unknown timer: " + timer);
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+    }
+
+    private static void registerBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(), new ObjectName("chess:type=Metrics"));
+        } catch (JMException e) {
+            System.err.println("metrics: JMX registration failed: " + e);
+        }
+    }
+
+    private static void startDump() {
+        if (DUMP_SECONDS <= 0) return;
+        ScheduledExecutorService dump = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dump.scheduleAtFixedRate(() -> System.err.println(report()), DUMP_SECONDS, DUMP_SECONDS, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,60 @@
+package engine;
+
+// Ruch zakodowany w jednej liczbie: bity 0-5 pole startowe, 6-11 pole docelowe, 12-15 promocja (0 = brak), 16-19 flagi,
+// 20-23 ruszająca się figura, 24-27 zbita figura + 1 (0 = brak). Razem 28 bitów - tyle mieści wpis tablicy transpozycji.
+public class Move {
+    public static final int NONE = 0;
+
+    public static final int CAPTURE = 1 << 16;
+    public static final int EN_PASSANT = 1 << 17;
+    public static final int CASTLING = 1 << 18;
+    public static final int DOUBLE_PUSH = 1 << 19;
+
+    private Move() {
+        throw new AssertionError("Just Helper!");
+    }
+
+    public static int encode(int from, int to, int piece, int captured, int promotion, int flags) {
+        return from | (to << 6) | ((promotion == Board.NO_PIECE ? 0 : promotion) << 12) | flags
+            | (piece << 20) | ((captured + 1) << 24);
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    public static int promotion(int move) {
+        int promotion = (move >>> 12) & 15;
+        return (promotion == 0) ? Board.NO_PIECE : promotion;
+    }
+
+    public static int piece(int move) {
+        return (move >>> 20) & 15;
+    }
+
+    public static int captured(int move) {
+        return ((move >>> 24) & 15) - 1;
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return (move & EN_PASSANT) != 0;
+    }
+
+    public static boolean isCastling(int move) {
+        return (move & CASTLING) != 0;
+    }
+
+    public static String toString(int move) {
+        String name = Fen.squareName(from(move)) + Fen.squareName(to(move));
+        int promotion = promotion(move);
+        return (promotion == Board.NO_PIECE) ? name : name + "pnbrqk".charAt(promotion);
+    }
+}
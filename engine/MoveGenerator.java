@@ -0,0 +1,269 @@
+package engine;
+
+public class MoveGenerator {
+    // Pola pomiędzy królem a wieżą, które muszą być puste przy roszadzie
+    private static final long WHITE_KING_SIDE_PATH = Board.bit(5) | Board.bit(6);
+    private static final long WHITE_QUEEN_SIDE_PATH = Board.bit(1) | Board.bit(2) | Board.bit(3);
+    private static final long BLACK_KING_SIDE_PATH = WHITE_KING_SIDE_PATH << 56;
+    private static final long BLACK_QUEEN_SIDE_PATH = WHITE_QUEEN_SIDE_PATH << 56;
+
+    // Pola, na których król stoi i przez które przechodzi - żadne nie może być atakowane
+    private static final long WHITE_KING_SIDE_SAFE = Board.bit(4) | Board.bit(5) | Board.bit(6);
+    private static final long WHITE_QUEEN_SIDE_SAFE = Board.bit(4) | Board.bit(3) | Board.bit(2);
+    private static final long BLACK_KING_SIDE_SAFE = WHITE_KING_SIDE_SAFE << 56;
+    private static final long BLACK_QUEEN_SIDE_SAFE = WHITE_QUEEN_SIDE_SAFE << 56;
+
+    private static final int[] PROMOTIONS = {Board.QUEEN, Board.ROOK, Board.BISHOP, Board.KNIGHT};
+
+    private MoveGenerator() {
+        throw new AssertionError("Just Helper!");
+    }
+
+    public static long targets(Board board, int square) {
+        int piece = board.pieceAt(square);
+        if (piece == Board.NO_PIECE) return 0L;
+
+        int side = Board.colorOf(piece);
+        switch (Board.typeOf(piece)) {
+            case Board.PAWN:
+                return pawnTargets(board, square, side);
+            case Board.KNIGHT:
+                return knightTargets(board, square, side);
+            case Board.BISHOP:
+                return bishopTargets(board, square, side);
+            case Board.ROOK:
+                return rookTargets(board, square, side);
+            case Board.QUEEN:
+                return queenTargets(board, square, side);
+            case Board.KING:
+                return kingTargets(board, square, side);
+            default:
+                throw new IllegalArgumentException("Unknown piece: " + piece);
+        }
+    }
+
+    public static long pawnTargets(Board board, int square, int side) {
+        long pawn = Board.bit(square);
+        long empty = ~board.occupied();
+
+        // White moves up, Black moves down
+        long oneStep = ((side == Board.WHITE) ? pawn << 8 : pawn >>> 8) & empty;
+
+        // Two steps move is only possible from the starting row, through an empty square
+        long twoSteps = ((side == Board.WHITE) ? (oneStep & Board.RANK_3) << 8 : (oneStep & Board.RANK_6) >>> 8) & empty;
+
+        // Diagonal captures to the left and right
+        long captures = Attacks.pawn(side, square) & board.occupancy(Board.opposite(side));
+
+        return oneStep | twoSteps | captures;
+    }
+
+    public static long knightTargets(Board board, int square, int side) {
+        // Pole jest puste lub zajmowane przez przeciwnika
+        return Attacks.knight(square) & ~board.occupancy(side);
+    }
+
+    public static long bishopTargets(Board board, int square, int side) {
+        // Promienie po przekątnych kończą się na pierwszej napotkanej figurze (bicie tylko przeciwnika)
+        return Attacks.bishop(square, board.occupied()) & ~board.occupancy(side);
+    }
+
+    public static long rookTargets(Board board, int square, int side) {
+        // Góra, dół, prawo, lewo - bez pól zajętych przez własne figury
+        return Attacks.rook(square, board.occupied()) & ~board.occupancy(side);
+    }
+
+    public static long queenTargets(Board board, int square, int side) {
+        // Ruchy jak wieża (prosto) i jak goniec (na ukos)
+        return Attacks.queen(square, board.occupied()) & ~board.occupancy(side);
+    }
+
+    public static long kingTargets(Board board, int square, int side) {
+        long targets = Attacks.king(square) & ~board.occupancy(side);
+
+        if (side == Board.WHITE) {
+            // Krótka i długa roszada
+            if (canCastle(board, square, 4, 7, Board.WHITE_KING_SIDE, WHITE_KING_SIDE_PATH, WHITE_KING_SIDE_SAFE, side)) targets |= Board.bit(6);
+            if (canCastle(board, square, 4, 0, Board.WHITE_QUEEN_SIDE, WHITE_QUEEN_SIDE_PATH, WHITE_QUEEN_SIDE_SAFE, side)) targets |= Board.bit(2);
+        } else {
+            if (canCastle(board, square, 60, 63, Board.BLACK_KING_SIDE, BLACK_KING_SIDE_PATH, BLACK_KING_SIDE_SAFE, side)) targets |= Board.bit(62);
+            if (canCastle(board, square, 60, 56, Board.BLACK_QUEEN_SIDE, BLACK_QUEEN_SIDE_PATH, BLACK_QUEEN_SIDE_SAFE, side)) targets |= Board.bit(58);
+        }
+
+        return targets;
+    }
+
+    private static boolean canCastle(Board board, int square, int kingSquare, int rookSquare, int castlingRight,
+                                     long path, long safe, int side) {
+        // Pola pomiędzy królem a wieżą muszą być puste, a król nie może być w szachu ani przez niego przechodzić
+        return square == kingSquare
+            && board.hasCastlingRight(castlingRight)
+            && (board.pieces(side, Board.ROOK) & Board.bit(rookSquare)) != 0
+            && (board.occupied() & path) == 0
+            && (board.attackedBy(Board.opposite(side)) & safe) == 0;
+    }
+
+    public static MoveList legalMoves(Board board) {
+        MoveList moves = new MoveList();
+        legalMoves(board, moves);
+        return moves;
+    }
+
+    public static void legalMoves(Board board, MoveList moves) {
+        moves.setSize(legalMoves(board, moves.buffer(), 0));
+    }
+
+    // Legalne ruchy jednej figury; bufor musi mieć miejsce na wszystkie ruchy pozycji (MoveList.CAPACITY od start)
+    public static int legalMovesFrom(Board board, int square, int[] moves, int start) {
+        int end = legalMoves(board, moves, start);
+        int count = start;
+        for (int i = start; i < end; i++) {
+            if (Move.from(moves[i]) == square) moves[count++] = moves[i];
+        }
+        return count;
+    }
+
+    // Tylko ruchy legalne: szachujące i związane figury liczone raz na pozycję, a ruchy filtrowane maskami.
+    // Ruchy trafiają do bufora wywołującego od indeksu start (bez alokacji); zwraca indeks za ostatnim ruchem.
+    public static int legalMoves(Board board, int[] moves, int start) {
+        if (!Metrics.ENABLED) return generateLegalMoves(board, moves, start);
+
+        long begin = System.nanoTime();
+        int end = generateLegalMoves(board, moves, start);
+        Metrics.moveGeneration(end - start, begin);
+        return end;
+    }
+
+    private static int generateLegalMoves(Board board, int[] moves, int start) {
+        int count = start;
+        int side = board.getSideToMove();
+        int them = Board.opposite(side);
+        int king = board.kingSquare(side);
+        long occupied = board.occupied();
+        long enemy = board.occupancy(them);
+        long enemyQueens = board.pieces(them, Board.QUEEN);
+        long enemyRooks = board.pieces(them, Board.ROOK) | enemyQueens;
+        long enemyBishops = board.pieces(them, Board.BISHOP) | enemyQueens;
+
+        long checkers = 0L;
+        long checkMask = ~0L;
+        long pinned = 0L;
+        long snipers = 0L;
+
+        if (king != Board.NO_SQUARE) {
+            checkers = board.attackersTo(king, them, occupied);
+
+            // Król nie może cofnąć się wzdłuż promienia figury, która go szachuje
+            long danger = board.attackedBy(them);
+            long withoutKing = occupied ^ Board.bit(king);
+            for (long sliders = checkers & (enemyRooks | enemyBishops); sliders != 0; sliders &= sliders - 1) {
+                int slider = Long.numberOfTrailingZeros(sliders);
+                if ((enemyRooks & Board.bit(slider)) != 0) danger |= Attacks.rook(slider, withoutKing);
+                if ((enemyBishops & Board.bit(slider)) != 0) danger |= Attacks.bishop(slider, withoutKing);
+            }
+            count = addMoves(board, moves, count, Board.piece(side, Board.KING), king, kingTargets(board, king, side) & ~danger, enemy);
+
+            // Podwójny szach: ruszyć się może tylko król
+            if (Long.bitCount(checkers) > 1) return count;
+
+            if (checkers != 0) {
+                checkMask = checkers | Attacks.between(king, Long.numberOfTrailingZeros(checkers));
+            }
+
+            // Związana figura to jedyna figura stojąca pomiędzy królem a wrogą figurą liniową
+            snipers = (Attacks.rook(king, enemy) & enemyRooks) | (Attacks.bishop(king, enemy) & enemyBishops);
+            for (long candidates = snipers; candidates != 0; candidates &= candidates - 1) {
+                long blockers = Attacks.between(king, Long.numberOfTrailingZeros(candidates)) & occupied;
+                if (Long.bitCount(blockers) == 1) {
+                    pinned |= blockers & board.occupancy(side);
+                }
+            }
+        }
+
+        for (long pieces = board.occupancy(side) & ~board.pieces(side, Board.KING); pieces != 0; pieces &= pieces - 1) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            int piece = board.pieceAt(from);
+            long targets = pieceTargets(board, Board.typeOf(piece), from, side) & checkMask;
+            if ((pinned & Board.bit(from)) != 0) {
+                targets &= pinRay(king, from, snipers);
+            }
+            count = addMoves(board, moves, count, piece, from, targets, enemy);
+        }
+
+        return addEnPassant(board, moves, count, side, king);
+    }
+
+    private static long pieceTargets(Board board, int type, int square, int side) {
+        switch (type) {
+            case Board.PAWN:
+                return pawnTargets(board, square, side);
+            case Board.KNIGHT:
+                return knightTargets(board, square, side);
+            case Board.BISHOP:
+                return bishopTargets(board, square, side);
+            case Board.ROOK:
+                return rookTargets(board, square, side);
+            default:
+                return queenTargets(board, square, side);
+        }
+    }
+
+    // Linia, po której może poruszać się związana figura: od króla aż do wiążącej figury włącznie
+    private static long pinRay(int king, int square, long snipers) {
+        for (; snipers != 0; snipers &= snipers - 1) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            long ray = Attacks.between(king, sniper);
+            if ((ray & Board.bit(square)) != 0) {
+                return ray | Board.bit(sniper);
+            }
+        }
+        return ~0L;
+    }
+
+    private static int addEnPassant(Board board, int[] moves, int count, int side, int king) {
+        int target = board.getEnPassantSquare();
+        if (target == Board.NO_SQUARE) return count;
+
+        int them = Board.opposite(side);
+        int captured = (side == Board.WHITE) ? target - 8 : target + 8;
+        for (long pawns = Attacks.pawn(them, target) & board.pieces(side, Board.PAWN); pawns != 0; pawns &= pawns - 1) {
+            int from = Long.numberOfTrailingZeros(pawns);
+
+            // Bicie w przelocie zdejmuje dwa piony z jednego rzędu, więc legalność sprawdzamy na planszy po ruchu
+            if (king != Board.NO_SQUARE) {
+                long occupied = (board.occupied() ^ Board.bit(from) ^ Board.bit(captured)) | Board.bit(target);
+                long attackers = board.attackersTo(king, them, occupied) & ~Board.bit(captured);
+                if (attackers != 0) continue;
+            }
+            moves[count++] = Move.encode(from, target, Board.piece(side, Board.PAWN), Board.piece(them, Board.PAWN),
+                Board.NO_PIECE, Move.CAPTURE | Move.EN_PASSANT);
+        }
+        return count;
+    }
+
+    private static int addMoves(Board board, int[] moves, int count, int piece, int from, long targets, long enemy) {
+        int type = Board.typeOf(piece);
+        for (; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            int captured = ((enemy & Board.bit(to)) != 0) ? board.pieceAt(to) : Board.NO_PIECE;
+            int flags = (captured != Board.NO_PIECE) ? Move.CAPTURE : 0;
+
+            if (type == Board.PAWN) {
+                if (Math.abs(to - from) == 16) {
+                    flags |= Move.DOUBLE_PUSH;
+                } else if (Board.rank(to) == 0 || Board.rank(to) == 7) {
+                    for (int promotion : PROMOTIONS) {
+                        moves[count++] = Move.encode(from, to, piece, captured, promotion, flags);
+                    }
+                    continue;
+                }
+            } else if (type == Board.KING && Math.abs(to - from) == 2) {
+                flags |= Move.CASTLING;
+            }
+
+            moves[count++] = Move.encode(from, to, piece, captured, Board.NO_PIECE, flags);
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,63 @@
+package engine;
+
+public class MoveList {
+    public static final int CAPACITY = 256;
+
+    private final int[] moves = new int[CAPACITY];
+    private int size;
+
+    public void add(int move) {
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    // Bufor wypełniany bezpośrednio przez MoveGenerator
+    int[] buffer() {
+        return moves;
+    }
+
+    void setSize(int size) {
+        this.size = size;
+    }
+
+    public void swap(int i, int j) {
+        int move = moves[i];
+        moves[i] = moves[j];
+        moves[j] = move;
+    }
+
+    // Pierwszy ruch z pola na pole (przy promocji - hetman) albo Move.NONE
+    public int find(int from, int to) {
+        for (int i = 0; i < size; i++) {
+            if (Move.from(moves[i]) == from && Move.to(moves[i]) == to) {
+                return moves[i];
+            }
+        }
+        return Move.NONE;
+    }
+
+    public long targetsFrom(int from) {
+        long targets = 0L;
+        for (int i = 0; i < size; i++) {
+            if (Move.from(moves[i]) == from) {
+                targets |= Board.bit(Move.to(moves[i]));
+            }
+        }
+        return targets;
+    }
+}
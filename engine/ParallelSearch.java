@@ -0,0 +1,163 @@
+package engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Przeszukiwanie równoległe "Lazy SMP": wszystkie wątki liczą tę samą pozycję na własnych kopiach planszy
+// i dzielą się wynikami przez wspólną tablicę transpozycji. Ruch wybiera wątek główny (wywołujący).
+// Przy jednym wątku nie ma żadnej puli - wynik jest powtarzalny, tak jak w zwykłym Search.
+public class ParallelSearch {
+    private final TranspositionTable table;
+    private final Search[] searches;
+    private final ExecutorService helpers;
+
+    public ParallelSearch(TranspositionTable table, int threads) {
+        this.table = table;
+        this.searches = new Search[Math.max(1, threads)];
+        for (int i = 0; i < searches.length; i++) {
+            searches[i] = new Search(table);
+            searches[i].setFirstDepth(1 + (i & 1)); // Co drugi pomocnik pomija pierwszą iterację
+        }
+
+        this.helpers = (searches.length == 1) ? null : Executors.newFixedThreadPool(searches.length - 1, runnable -> {
+            Thread thread = new Thread(runnable, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void setListener(Search.Listener listener) {
+        searches[0].setListener(listener);
+    }
+
+    // Limit węzłów dotyczy wątku głównego; pomocnicy liczą, dopóki główny nie skończy
+    public int search(Board position, int maxDepth, long timeMillis, long maxNodes) {
+        prepare();
+        return run(position, maxDepth, timeMillis, maxNodes);
+    }
+
+    // Zerowanie osobno od startu: wywołujący, który zleca przeszukiwanie innemu wątkowi, robi to u siebie,
+    // żeby stop() wysłane zaraz po zleceniu nie przepadło
+    public void prepare() {
+        table.newSearch();
+        for (Search search : searches) {
+            search.reset();
+        }
+    }
+
+    public int run(Board position, int maxDepth, long timeMillis, long maxNodes) {
+        List<Future<?>> running = new ArrayList<>();
+        for (int i = 1; i < searches.length; i++) {
+            Search helper = searches[i];
+            running.add(helpers.submit(() -> helper.run(position, Search.MAX_PLY, timeMillis, 0)));
+        }
+
+        int bestMove;
+        try {
+            bestMove = searches[0].run(position, maxDepth, timeMillis, maxNodes);
+        } finally {
+            for (int i = 1; i < searches.length; i++) {
+                searches[i].stop();
+            }
+            for (Future<?> future : running) {
+                awaitHelper(future);
+            }
+        }
+        return bestMove;
+    }
+
+    private static void awaitHelper(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search helper failed", e.getCause());
+        }
+    }
+
+    // Można wołać z innego wątku
+    public void stop() {
+        for (Search search : searches) {
+            search.stop();
+        }
+    }
+
+    public long getNodes() {
+        long nodes = 0;
+        for (Search search : searches) {
+            nodes += search.getNodes();
+        }
+        return nodes;
+    }
+
+    public int getBestScore() {
+        return searches[0].getBestScore();
+    }
+
+    public int getCompletedDepth() {
+        return searches[0].getCompletedDepth();
+    }
+
+    public int getThreads() {
+        return searches.length;
+    }
+
+    public void shutdown() {
+        if (helpers != null) helpers.shutdownNow();
+    }
+
+    // Skalowanie: czas do osiągnięcia głębokości i węzły na sekundę dla 1, 2, 4... wątków
+    // Użycie: java engine.ParallelSearch [depth] [--threads max] [--hash MB] [fen]
+    public static void main(String[] args) {
+        int depth = 7;
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        int hash = 64;
+        StringBuilder fen = new StringBuilder();
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--threads") && i + 1 < args.length) {
+                maxThreads = Integer.parseInt(args[++i]);
+            } else if (arg.equals("--hash") && i + 1 < args.length) {
+                hash = Integer.parseInt(args[++i]);
+            } else if (fen.length() == 0 && arg.matches("\\d+")) {
+                depth = Integer.parseInt(arg);
+            } else {
+                fen.append(fen.length() == 0 ? "" : " ").append(arg);
+            }
+        }
+
+        Board board = new Board();
+        Fen.load(board, fen.length() == 0 ? "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1" : fen.toString());
+        TranspositionTable table = new TranspositionTable(hash);
+
+        // Rozgrzewka JIT, żeby pierwszy pomiar nie był zaniżony
+        new Search(table).search(board, Math.max(1, depth - 2), 0, 0);
+
+        double baseSeconds = 0;
+        double baseNps = 0;
+        for (int threads = 1; threads <= maxThreads; threads = (threads * 2 > maxThreads && threads < maxThreads) ? maxThreads : threads * 2) {
+            table.clear();
+            ParallelSearch search = new ParallelSearch(table, threads);
+            long start = System.nanoTime();
+            int best = search.search(board, depth, 0, 0);
+            long elapsed = Math.max(1L, System.nanoTime() - start);
+            search.shutdown();
+
+            double seconds = elapsed / 1e9;
+            double nps = search.getNodes() / seconds;
+            if (threads == 1) {
+                baseSeconds = seconds;
+                baseNps = nps;
+            }
+            System.out.printf("threads %3d  depth %2d  time %8.3fs  nodes %12d  %10.0f knps  nps x%5.2f  time-to-depth x%5.2f  best %s%n",
+                threads, search.getCompletedDepth(), seconds, search.getNodes(), nps / 1e3,
+                nps / baseNps, baseSeconds / seconds, Move.toString(best));
+        }
+    }
+}
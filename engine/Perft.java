@@ -0,0 +1,158 @@
+package engine;
+
+public class Perft {
+    private static final int MAX_DEPTH = 32;
+
+    // Standardowe pozycje testowe i wzorcowe liczby węzłów dla głębokości 1, 2, 3...
+    private static final String[][] POSITIONS = {
+        {"start", Fen.START_POSITION},
+        {"kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"},
+        {"position3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"},
+        {"position4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1"},
+        {"position5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8"},
+        {"position6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10"}
+    };
+    private static final long[][] EXPECTED = {
+        {20L, 400L, 8902L, 197281L, 4865609L, 119060324L},
+        {48L, 2039L, 97862L, 4085603L, 193690690L},
+        {14L, 191L, 2812L, 43238L, 674624L, 11030083L},
+        {6L, 264L, 9467L, 422333L, 15833292L},
+        {44L, 1486L, 62379L, 2103487L, 89941194L},
+        {46L, 2079L, 89890L, 3894594L, 164075551L}
+    };
+
+    private final Board board = new Board();
+    private final MoveList[] moves = new MoveList[MAX_DEPTH + 1];
+    private final TranspositionTable table;
+
+    public Perft() {
+        this(null);
+    }
+
+    // Z tablicą transpozycji liczby węzłów powtarzających się pozycji są brane z tablicy (może być współdzielona)
+    public Perft(TranspositionTable table) {
+        this.table = table;
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = new MoveList();
+        }
+    }
+
+    public long perft(Board position, int depth) {
+        board.copyFrom(position);
+        return perft(0, depth);
+    }
+
+    // Liczba węzłów dla każdego ruchu z pozycji startowej ("divide")
+    public long divide(Board position, int depth) {
+        board.copyFrom(position);
+        MoveGenerator.legalMoves(board, moves[0]);
+        long total = 0;
+
+        for (int i = 0; i < moves[0].size(); i++) {
+            int move = moves[0].get(i);
+            board.makeMove(move);
+            long nodes = perft(1, depth - 1);
+            board.unmakeMove(move);
+
+            total += nodes;
+            System.out.println(Move.toString(move) + ": " + nodes);
+        }
+
+        System.out.println();
+        System.out.println("Nodes searched: " + total);
+        return total;
+    }
+
+    private long perft(int ply, int depth) {
+        if (depth == 0) return 1L;
+
+        MoveList list = moves[ply];
+        MoveGenerator.legalMoves(board, list);
+        if (depth == 1) return list.size();
+
+        long key = board.getKey();
+        if (table != null) {
+            long data = table.probe(key);
+            if (data != TranspositionTable.MISS && TranspositionTable.depth(data) == depth) {
+                return TranspositionTable.payload(data);
+            }
+        }
+
+        long nodes = 0;
+        for (int i = 0; i < list.size(); i++) {
+            int move = list.get(i);
+            board.makeMove(move);
+            nodes += perft(ply + 1, depth - 1);
+            board.unmakeMove(move);
+        }
+
+        if (table != null) table.store(key, nodes, depth);
+        return nodes;
+    }
+
+    private static void runSuite(int maxDepth, TranspositionTable table) {
+        Perft perft = new Perft(table);
+        Board board = new Board();
+        boolean allPassed = true;
+
+        for (int i = 0; i < POSITIONS.length; i++) {
+            Fen.load(board, POSITIONS[i][1]);
+            int depthLimit = Math.min(maxDepth, EXPECTED[i].length);
+
+            for (int depth = 1; depth <= depthLimit; depth++) {
+                long start = System.nanoTime();
+                long nodes = perft.perft(board, depth);
+                long elapsed = Math.max(1L, System.nanoTime() - start);
+                long expected = EXPECTED[i][depth - 1];
+                allPassed &= nodes == expected;
+
+                System.out.printf("%-10s depth %d  nodes %12d  expected %12d  %-8s %8.3fs  %8.2f Mnps%n",
+                    POSITIONS[i][0], depth, nodes, expected, nodes == expected ? "OK" : "MISMATCH",
+                    elapsed / 1e9, nodes * 1e3 / elapsed);
+            }
+        }
+
+        System.out.println(allPassed ? "All node counts match." : "Node count mismatches found!");
+        if (!allPassed) System.exit(1);
+    }
+
+    // Użycie: java engine.Perft [depth] [--divide] [--hash MB] [fen]
+    public static void main(String[] args) {
+        int depth = 4;
+        boolean divide = false;
+        TranspositionTable table = null;
+        StringBuilder fen = new StringBuilder();
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--divide")) {
+                divide = true;
+            } else if (arg.equals("--hash") && i + 1 < args.length) {
+                table = new TranspositionTable(Integer.parseInt(args[++i]));
+            } else if (fen.length() == 0 && arg.matches("\\d+")) {
+                depth = Integer.parseInt(arg);
+            } else {
+                fen.append(fen.length() == 0 ? "" : " ").append(arg);
+            }
+        }
+
+        if (depth < 1 || depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Depth must be between 1 and " + MAX_DEPTH);
+        }
+
+        if (fen.length() == 0 && !divide) {
+            runSuite(depth, table);
+            return;
+        }
+
+        Board board = new Board();
+        Fen.load(board, fen.length() == 0 ? Fen.START_POSITION : fen.toString());
+        Perft perft = new Perft(table);
+        long start = System.nanoTime();
+        long nodes = divide ? perft.divide(board, depth) : perft.perft(board, depth);
+        long elapsed = Math.max(1L, System.nanoTime() - start);
+
+        if (!divide) System.out.println("Nodes searched: " + nodes);
+        System.out.printf("Time: %.3fs (%.2f Mnps)%n", elapsed / 1e9, nodes * 1e3 / elapsed);
+    }
+}
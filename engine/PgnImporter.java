@@ -0,0 +1,218 @@
+package engine;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+// Import archiwów PGN: czytanie strumieniowe w jednym wątku, odtwarzanie i sprawdzanie partii w puli fork-join.
+// Partia z nielegalnym lub nierozpoznanym ruchem jest zgłaszana, a import idzie dalej.
+// Wyjątek przy odtwarzaniu (błąd programu, nie partii) też nie zatrzymuje puli - importFile rzuca go na końcu.
+public class PgnImporter {
+    private static final int BATCH_SIZE = 256;
+    private static final int SPLIT_THRESHOLD = 16;
+    private static final int MAX_REPORTED = 20;
+
+    // Nielegalna partia: numer w pliku, półruch i zapis, którego nie udało się wykonać
+    public static class IllegalGame {
+        public final long number;
+        public final int ply;
+        public final String san;
+        public final String description;
+
+        IllegalGame(long number, int ply, String san, String description) {
+            this.number = number;
+            this.ply = ply;
+            this.san = san;
+            this.description = description;
+        }
+
+        @Override
+        public String toString() {
+            return "game " + number + " (" + description + "), ply " + ply + ": " + san;
+        }
+    }
+
+    // Każdy wątek puli ma własną planszę i bufor ruchów
+    private static final ThreadLocal<Board> BOARDS = ThreadLocal.withInitial(Board::new);
+    private static final ThreadLocal<MoveList> MOVES = ThreadLocal.withInitial(MoveList::new);
+
+    private final ForkJoinPool pool;
+    private final Semaphore inFlight;
+    private final LongAdder games = new LongAdder();
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder illegal = new LongAdder();
+    private final Queue<IllegalGame> reported = new ConcurrentLinkedQueue<>();
+    private final LongAdder failed = new LongAdder();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>(); // Pierwszy wyjątek z puli
+
+    public PgnImporter(int threads) {
+        this.pool = new ForkJoinPool(Math.max(1, threads));
+        this.inFlight = new Semaphore(Math.max(1, threads) * 4); // Ograniczenie partii w pamięci naraz
+    }
+
+    public void importFile(Path path) throws IOException, InterruptedException {
+        try (PgnReader reader = PgnReader.open(path)) {
+            List<PgnReader.Game> batch = new ArrayList<>(BATCH_SIZE);
+            PgnReader.Game game;
+            while ((game = reader.next()) != null) {
+                batch.add(game);
+                if (batch.size() == BATCH_SIZE) {
+                    submit(batch);
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+            if (!batch.isEmpty()) submit(batch);
+        }
+
+        // Czekamy, aż wszystkie paczki wrócą do puli zezwoleń
+        int permits = pool.getParallelism() * 4;
+        inFlight.acquire(permits);
+        inFlight.release(permits);
+
+        Throwable first = failure.get();
+        if (first != null) {
+            throw new IllegalStateException("Replay failed in " + failed.sum() + " game(s)", first);
+        }
+    }
+
+    private void submit(List<PgnReader.Game> batch) throws InterruptedException {
+        inFlight.acquire();
+        pool.execute(new ReplayTask(batch, 0, batch.size(), true));
+    }
+
+    private class ReplayTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<PgnReader.Game> batch;
+        private final int from;
+        private final int to;
+        private final boolean root;
+
+        ReplayTask(List<PgnReader.Game> batch, int from, int to, boolean root) {
+            this.batch = batch;
+            this.from = from;
+            this.to = to;
+            this.root = root;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                if (to - from > SPLIT_THRESHOLD) {
+                    int middle = (from + to) >>> 1;
+                    invokeAll(new ReplayTask(batch, from, middle, false), new ReplayTask(batch, middle, to, false));
+                } else {
+                    for (int i = from; i < to; i++) {
+                        try {
+                            replay(batch.get(i));
+                        } catch (RuntimeException e) {
+                            fail(e);
+                        }
+                    }
+                }
+            } catch (Throwable e) {
+                // Zadań z execute() nikt nie łączy - bez tego wyjątek zostałby w zadaniu
+                if (!root) throw e;
+                fail(e);
+            } finally {
+                if (root) inFlight.release();
+            }
+        }
+    }
+
+    // Odtwarza partię tak jak plansza: bicia, roszady, bicie w przelocie i promocje wykonuje Board.makeMove
+    private void replay(PgnReader.Game game) {
+        Board board = BOARDS.get();
+        MoveList legal = MOVES.get();
+        games.increment();
+
+        try {
+            String fen = game.tags.get("FEN");
+            Fen.load(board, (fen != null) ? fen : Fen.START_POSITION);
+        } catch (RuntimeException e) {
+            flag(game, 0, "[FEN \"" + game.tags.get("FEN") + "\"]");
+            return;
+        }
+
+        int ply = 0;
+        for (String san : game.moves) {
+            int move = San.parse(board, legal, san);
+            if (move == Move.NONE) {
+                flag(game, ply + 1, san);
+                break;
+            }
+            board.makeMove(move);
+            ply++;
+        }
+        moves.add(ply);
+    }
+
+    private void fail(Throwable e) {
+        failed.increment();
+        failure.compareAndSet(null, e); // Kolejne tylko liczone
+    }
+
+    private void flag(PgnReader.Game game, int ply, String san) {
+        illegal.increment();
+        if (reported.size() < MAX_REPORTED) {
+            String description = game.tag("White") + " - " + game.tag("Black") + ", " + game.tag("Event");
+            reported.add(new IllegalGame(game.number, ply, san, description));
+        }
+    }
+
+    public long getGames() {
+        return games.sum();
+    }
+
+    public long getMoves() {
+        return moves.sum();
+    }
+
+    public long getIllegalGames() {
+        return illegal.sum();
+    }
+
+    public Queue<IllegalGame> getReported() {
+        return reported;
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    // Użycie: java engine.PgnImporter <plik.pgn> [--threads n]
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) {
+            System.out.println("Usage: java engine.PgnImporter <file.pgn> [--threads n]");
+            return;
+        }
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 1; i + 1 < args.length; i++) {
+            if (args[i].equals("--threads")) threads = Integer.parseInt(args[i + 1]);
+        }
+
+        Path path = Paths.get(args[0]);
+        PgnImporter importer = new PgnImporter(threads);
+        long start = System.nanoTime();
+        importer.importFile(path);
+        double seconds = Math.max(1L, System.nanoTime() - start) / 1e9;
+        importer.shutdown();
+
+        for (IllegalGame game : importer.getReported()) {
+            System.out.println("Illegal " + game);
+        }
+        System.out.printf("Games: %d (%d illegal)  moves: %d  time: %.3fs  %.0f games/s  %.0f moves/s  threads: %d%n",
+            importer.getGames(), importer.getIllegalGames(), importer.getMoves(), seconds,
+            importer.getGames() / seconds, importer.getMoves() / seconds, threads);
+    }
+}
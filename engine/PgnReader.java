@@ -0,0 +1,207 @@
+package engine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Strumieniowy czytnik PGN: plik czytany kanałem NIO przez stały bufor, partia po partii, bez wczytywania całości.
+// Komentarze, warianty, NAG-i i numery ruchów są pomijane - zostają nagłówki i ruchy w SAN.
+public class PgnReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    public static class Game {
+        public final long number;
+        public final Map<String, String> tags = new LinkedHashMap<>();
+        public final List<String> moves = new ArrayList<>();
+        public String result = "*";
+
+        Game(long number) {
+            this.number = number;
+        }
+
+        public String tag(String name) {
+            return tags.getOrDefault(name, "?");
+        }
+    }
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final StringBuilder token = new StringBuilder(32);
+    private long bytesRead;
+    private long games;
+    private int pushedBack = -1;
+    private boolean pushedBackAtLineStart;
+    private boolean nextAtLineStart = true;
+    private boolean atLineStart; // Czy ostatnio odczytany znak zaczyna wiersz
+
+    public PgnReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        buffer.flip();
+    }
+
+    public static PgnReader open(Path path) throws IOException {
+        return new PgnReader(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    // Następna partia albo null na końcu pliku
+    public Game next() throws IOException {
+        int c = skipWhitespace();
+        if (c < 0) return null;
+
+        Game game = new Game(++games);
+        while (c == '[') {
+            readTag(game);
+            c = skipWhitespace();
+        }
+        unread(c);
+
+        // Tekst ruchów aż do wyniku albo do nagłówka następnej partii
+        while (true) {
+            c = skipWhitespace();
+            if (c < 0) break;
+            if (c == '[' && atLineStart) {
+                unread(c);
+                break;
+            }
+
+            if (c == '{') {
+                skipUntil('}');
+            } else if (c == ';') {
+                skipUntil('\n');
+            } else if (c == '%' && atLineStart) {
+                skipUntil('\n');
+            } else if (c == '(') {
+                skipVariation();
+            } else if (c == '$') {
+                readToken(c); // NAG
+            } else {
+                String text = readToken(c);
+                if (isResult(text)) {
+                    game.result = text;
+                    break;
+                }
+                String move = stripMoveNumber(text);
+                if (!move.isEmpty()) game.moves.add(move);
+            }
+        }
+        return game;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void readTag(Game game) throws IOException {
+        token.setLength(0);
+        int c;
+        while ((c = read()) >= 0 && c != '"' && c != ']') {
+            if (!Character.isWhitespace(c)) token.append((char) c);
+        }
+        String name = token.toString();
+
+        token.setLength(0);
+        if (c == '"') {
+            while ((c = read()) >= 0 && c != '"') {
+                if (c == '\\') c = read(); // Znak poprzedzony odwrotnym ukośnikiem
+                if (c >= 0) token.append((char) c);
+            }
+            while (c >= 0 && c != ']') c = read();
+        }
+        game.tags.put(name, token.toString());
+    }
+
+    private String readToken(int first) throws IOException {
+        token.setLength(0);
+        token.append((char) first);
+        int c;
+        while ((c = read()) >= 0 && !Character.isWhitespace(c) && "{}();[".indexOf(c) < 0) {
+            token.append((char) c);
+        }
+        unread(c);
+        return token.toString();
+    }
+
+    // "12.e4", "12...e5", "12." - zostaje sam ruch (albo pusty napis)
+    private static String stripMoveNumber(String text) {
+        int i = 0;
+        while (i < text.length() && Character.isDigit(text.charAt(i))) i++;
+        if (i == 0 || i == text.length() || text.charAt(i) != '.') return (i == text.length()) ? "" : text;
+        while (i < text.length() && text.charAt(i) == '.') i++;
+        return text.substring(i);
+    }
+
+    private static boolean isResult(String text) {
+        return text.equals("1-0") || text.equals("0-1") || text.equals("1/2-1/2") || text.equals("*");
+    }
+
+    private void skipVariation() throws IOException {
+        int depth = 1;
+        int c;
+        while (depth > 0 && (c = read()) >= 0) {
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '{') {
+                skipUntil('}');
+            } else if (c == ';') {
+                skipUntil('\n');
+            }
+        }
+    }
+
+    private void skipUntil(int end) throws IOException {
+        int c;
+        while ((c = read()) >= 0 && c != end) {
+            // pomijamy
+        }
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c;
+        while ((c = read()) >= 0 && Character.isWhitespace(c)) {
+            // pomijamy
+        }
+        return c;
+    }
+
+    private void unread(int c) {
+        pushedBack = c;
+        pushedBackAtLineStart = atLineStart;
+    }
+
+    // Bajty jako znaki ISO-8859-1: notacja ruchów to czyste ASCII, polskie znaki w nagłówkach nie są potrzebne do reguł
+    private int read() throws IOException {
+        if (pushedBack != -1) {
+            int c = pushedBack;
+            pushedBack = -1;
+            atLineStart = pushedBackAtLineStart;
+            return c;
+        }
+        if (!buffer.hasRemaining()) {
+            buffer.clear();
+            int count = channel.read(buffer);
+            buffer.flip();
+            if (count <= 0) return -1;
+            bytesRead += count;
+        }
+
+        int c = buffer.get() & 0xFF;
+        atLineStart = nextAtLineStart;
+        nextAtLineStart = c == '\n';
+        return c;
+    }
+}
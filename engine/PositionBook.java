@@ -0,0 +1,650 @@
+package engine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+// Baza pozycji: dla klucza Zobrista - ruchy zagrane z tej pozycji w archiwum i wyniki partii.
+// Plik to posortowane rekordy (klucz, ruch) mapowane do pamięci, szukane binarnie - nic nie trafia na stertę.
+//   nagłówek: magic, rozmiar rekordu, liczba rekordów
+//   rekord (32 bajty): [long klucz][u16 ruch jak w GameJournal][u16 0][int partie][int 1-0][int remisy][int 0-1][int 0]
+// Budowa: partie odtwarzane równolegle, każdy wątek sortuje swoje paczki do plików tymczasowych, na końcu scalanie.
+public class PositionBook implements Closeable {
+    private static final int MAGIC = 0x43484232; // "CHB2" - klucze z plikiem en passant tylko przy możliwym biciu
+    private static final int HEADER = 16;
+    private static final int ENTRY = 32;
+    private static final int SEGMENT_ENTRIES = 1 << 25; // 1 GB na jedno mapowanie
+
+    public static final int WHITE_WINS = 0;
+    public static final int DRAW = 1;
+    public static final int BLACK_WINS = 2;
+    public static final int UNKNOWN = 3;
+
+    // Ruch z pozycji ze statystyką partii, w których go zagrano
+    public static final class Entry {
+        public final int move;
+        public final String san;
+        public final int games;
+        public final int whiteWins;
+        public final int draws;
+        public final int blackWins;
+
+        Entry(int move, String san, int games, int whiteWins, int draws, int blackWins) {
+            this.move = move;
+            this.san = san;
+            this.games = games;
+            this.whiteWins = whiteWins;
+            this.draws = draws;
+            this.blackWins = blackWins;
+        }
+
+        // Krótki opis na planszę: ruch i liczba partii, w drugiej linii procent wygranych białych, remisów i wygranych czarnych
+        public String label() {
+            int decided = whiteWins + draws + blackWins;
+            if (decided == 0) return san + " " + games;
+            return san + " " + games + "\n+" + (100 * whiteWins / decided) + " =" + (100 * draws / decided)
+                + " -" + (100 * blackWins / decided) + "%";
+        }
+
+        @Override
+        public String toString() {
+            return san + " " + games + " (+" + whiteWins + " =" + draws + " -" + blackWins + ")";
+        }
+    }
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final long size;
+
+    private PositionBook(FileChannel channel) throws IOException {
+        this.channel = channel;
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(header, 0);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != ENTRY) throw new IOException("Not a position book");
+        size = header.getLong(8);
+
+        segments = new MappedByteBuffer[(int) ((size + SEGMENT_ENTRIES - 1) / SEGMENT_ENTRIES)];
+        for (int i = 0; i < segments.length; i++) {
+            long first = (long) i * SEGMENT_ENTRIES;
+            long bytes = Math.min(SEGMENT_ENTRIES, size - first) * ENTRY;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER + first * ENTRY, bytes);
+            segments[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    public static PositionBook open(Path path) throws IOException {
+        return new PositionBook(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    public long size() {
+        return size;
+    }
+
+    // Ruchy zagrane z pozycji na planszy, od najczęstszego; rekordy bez legalnego ruchu (kolizja klucza) są pomijane
+    public List<Entry> lookup(Board board) {
+        List<Entry> entries = new ArrayList<>();
+        long key = board.getKey();
+        long index = lowerBound(key);
+        if (index == size || keyAt(index) != key) return entries;
+
+        MoveList legal = MoveGenerator.legalMoves(board);
+        for (; index < size && keyAt(index) == key; index++) {
+            ByteBuffer segment = segment(index);
+            int offset = offset(index);
+            int move = GameJournal.find(legal, segment.getShort(offset + 8) & 0xFFFF);
+            if (move == Move.NONE) continue;
+
+            entries.add(new Entry(move, San.toSan(legal, move), segment.getInt(offset + 12),
+                segment.getInt(offset + 16), segment.getInt(offset + 20), segment.getInt(offset + 24)));
+        }
+        entries.sort(Comparator.comparingInt((Entry entry) -> entry.games).reversed());
+        return entries;
+    }
+
+    // Pierwszy rekord o kluczu >= key (kolejność kluczy ze znakiem, jak przy budowie)
+    private long lowerBound(long key) {
+        long low = 0;
+        long high = size;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (keyAt(middle) < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long keyAt(long index) {
+        return segment(index).getLong(offset(index));
+    }
+
+    private ByteBuffer segment(long index) {
+        return segments[(int) (index / SEGMENT_ENTRIES)];
+    }
+
+    private static int offset(long index) {
+        return (int) (index % SEGMENT_ENTRIES) * ENTRY;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public static int result(String result) {
+        switch (result) {
+            case "1-0":
+                return WHITE_WINS;
+            case "1/2-1/2":
+                return DRAW;
+            case "0-1":
+                return BLACK_WINS;
+            default:
+                return UNKNOWN;
+        }
+    }
+
+    // Budowa bazy z archiwów PGN i dzienników partii (GameJournal); partie bez wyniku liczą się tylko do liczby partii.
+    // Para (pozycja, ruch) powtórzona w jednej partii liczy się raz - statystyka to partie, nie wystąpienia.
+    public static class Builder {
+        private static final int BATCH_SIZE = 256;
+        private static final int SPLIT_THRESHOLD = 16;
+        private static final int RUN_SIZE = 1 << 20; // Rekordów w paczce wątku przed zapisem na dysk (12 MB)
+
+        private final ForkJoinPool pool;
+        private final Semaphore inFlight;
+        private final Path tempDirectory;
+        private final LongAdder games = new LongAdder();
+        private final LongAdder positions = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+
+        private final Queue<Run> runs = new ConcurrentLinkedQueue<>();
+        private final Queue<Path> runFiles = new ConcurrentLinkedQueue<>();
+        private final ThreadLocal<Run> run = ThreadLocal.withInitial(() -> {
+            Run created = new Run();
+            runs.add(created);
+            return created;
+        });
+        private final ThreadLocal<Board> boards = ThreadLocal.withInitial(Board::new);
+        private final ThreadLocal<MoveList> moves = ThreadLocal.withInitial(MoveList::new);
+        private final ThreadLocal<Played> played = ThreadLocal.withInitial(Played::new);
+        private volatile IOException failure;
+        private final LongAdder failed = new LongAdder();
+        private final AtomicReference<Throwable> replayFailure = new AtomicReference<>(); // Pierwszy wyjątek z puli
+
+        public Builder(int threads, Path tempDirectory) {
+            this.pool = new ForkJoinPool(Math.max(1, threads));
+            this.inFlight = new Semaphore(Math.max(1, threads) * 4);
+            this.tempDirectory = tempDirectory;
+        }
+
+        public void addPgn(Path path) throws IOException, InterruptedException {
+            try (PgnReader reader = PgnReader.open(path)) {
+                List<PgnReader.Game> batch = new ArrayList<>(BATCH_SIZE);
+                PgnReader.Game game;
+                while ((game = reader.next()) != null) {
+                    batch.add(game);
+                    if (batch.size() == BATCH_SIZE) {
+                        submit(batch);
+                        batch = new ArrayList<>(BATCH_SIZE);
+                    }
+                }
+                if (!batch.isEmpty()) submit(batch);
+            }
+            await();
+        }
+
+        // Dziennik czytany wprost z mapowania - wątki dostają tylko zakresy numerów partii
+        public void addJournal(Path path) throws IOException, InterruptedException {
+            try (GameJournal journal = GameJournal.openForRead(path)) {
+                int count = journal.getGameCount();
+                for (int first = 0; first < count; first += BATCH_SIZE) {
+                    inFlight.acquire();
+                    pool.execute(new ReplayTask(first, Math.min(count, first + BATCH_SIZE), true, game -> replay(journal, game)));
+                }
+                await();
+            }
+        }
+
+        private void submit(List<PgnReader.Game> batch) throws InterruptedException {
+            inFlight.acquire();
+            pool.execute(new ReplayTask(0, batch.size(), true, i -> replay(batch.get(i))));
+        }
+
+        private void await() throws IOException, InterruptedException {
+            int permits = pool.getParallelism() * 4;
+            inFlight.acquire(permits);
+            inFlight.release(permits);
+            if (failure != null) throw failure;
+
+            Throwable first = replayFailure.get();
+            if (first != null) {
+                throw new IllegalStateException("Replay failed in " + failed.sum() + " game(s)", first);
+            }
+        }
+
+        private class ReplayTask extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+
+            private final int from;
+            private final int to;
+            private final boolean root;
+            private final IntConsumer replay;
+
+            ReplayTask(int from, int to, boolean root, IntConsumer replay) {
+                this.from = from;
+                this.to = to;
+                this.root = root;
+                this.replay = replay;
+            }
+
+            @Override
+            protected void compute() {
+                try {
+                    if (to - from > SPLIT_THRESHOLD) {
+                        int middle = (from + to) >>> 1;
+                        invokeAll(new ReplayTask(from, middle, false, replay), new ReplayTask(middle, to, false, replay));
+                    } else {
+                        for (int i = from; i < to; i++) {
+                            try {
+                                replay.accept(i);
+                            } catch (RuntimeException e) {
+                                fail(e);
+                            }
+                        }
+                    }
+                } catch (Throwable e) {
+                    // Zadań z execute() nikt nie łączy - bez tego wyjątek zostałby w zadaniu
+                    if (!root) throw e;
+                    fail(e);
+                } finally {
+                    if (root) inFlight.release();
+                }
+            }
+        }
+
+        private void replay(PgnReader.Game game) {
+            Board board = boards.get();
+            MoveList legal = moves.get();
+            try {
+                String fen = game.tags.get("FEN");
+                Fen.load(board, (fen != null) ? fen : Fen.START_POSITION);
+            } catch (RuntimeException e) {
+                skipped.increment();
+                return;
+            }
+
+            Played history = played.get();
+            int result = result(game.result);
+            int ply = 0;
+            for (String san : game.moves) {
+                int move = San.parse(board, legal, san);
+                if (move == Move.NONE) break; // Pozycje do nielegalnego ruchu zostają
+                add(history, ply++, board, GameJournal.encode(move) & 0xFFFF, result);
+                board.makeMove(move);
+            }
+            games.increment();
+        }
+
+        private void replay(GameJournal journal, int game) {
+            Board board = boards.get();
+            MoveList legal = moves.get();
+            Fen.load(board, journal.getStartFen(game));
+
+            Played history = played.get();
+            int plies = journal.getPlies(game);
+            for (int ply = 0; ply < plies; ply++) {
+                int encoded = journal.getMove(game, ply);
+                int move = GameJournal.decode(board, legal, encoded);
+                if (move == Move.NONE) break;
+                add(history, ply, board, encoded, UNKNOWN);
+                board.makeMove(move);
+            }
+            games.increment();
+        }
+
+        // Powtórzenie pozycji jest możliwe tylko od ostatniego ruchu nieodwracalnego, co dwa półruchy (jak Board.isRepetition)
+        private void add(Played history, int ply, Board board, int move, int result) {
+            long key = board.getKey();
+            history.set(ply, key, move);
+            int limit = Math.min(ply, board.getHalfmoveClock());
+            for (int back = 4; back <= limit; back += 2) {
+                if (history.keys[ply - back] == key && history.moves[ply - back] == move) return;
+            }
+            add(key, move, result);
+        }
+
+        private void fail(Throwable e) {
+            failed.increment();
+            replayFailure.compareAndSet(null, e); // Kolejne tylko liczone
+        }
+
+        private void add(long key, int move, int result) {
+            Run current = run.get();
+            current.keys[current.size] = key;
+            current.records[current.size] = move | (result << 16);
+            if (++current.size == RUN_SIZE) flush(current);
+            positions.increment();
+        }
+
+        // Sortuje paczkę, skleja powtórzenia (klucz, ruch) i zapisuje ją jako plik tymczasowy
+        private void flush(Run current) {
+            if (current.size == 0) return;
+            sort(current.keys, current.records, 0, current.size - 1);
+            try {
+                Path file = Files.createTempFile(tempDirectory, "book", ".run");
+                runFiles.add(file);
+                try (EntryWriter writer = new EntryWriter(file)) {
+                    for (int i = 0; i < current.size; i++) {
+                        int record = current.records[i];
+                        int result = record >>> 16;
+                        writer.add(current.keys[i], record & 0xFFFF, 1,
+                            (result == WHITE_WINS) ? 1 : 0, (result == DRAW) ? 1 : 0, (result == BLACK_WINS) ? 1 : 0);
+                    }
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+            current.size = 0;
+        }
+
+        // Scala posortowane paczki w jeden plik bazy i usuwa pliki tymczasowe
+        public void build(Path output) throws IOException {
+            for (Run current : runs) {
+                flush(current);
+            }
+            if (failure != null) throw failure;
+
+            List<FileChannel> channels = new ArrayList<>();
+            PriorityQueue<Cursor> queue = new PriorityQueue<>(Cursor.ORDER);
+            try (EntryWriter writer = new EntryWriter(output)) {
+                for (Path file : runFiles) {
+                    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+                    channels.add(channel);
+                    Cursor cursor = new Cursor(channel);
+                    if (cursor.next()) queue.add(cursor);
+                }
+
+                while (!queue.isEmpty()) {
+                    Cursor cursor = queue.poll();
+                    writer.add(cursor.key, cursor.move, cursor.games, cursor.whiteWins, cursor.draws, cursor.blackWins);
+                    if (cursor.next()) queue.add(cursor);
+                }
+            } finally {
+                for (FileChannel channel : channels) {
+                    channel.close();
+                }
+                for (Path file : runFiles) {
+                    Files.deleteIfExists(file);
+                }
+                runFiles.clear();
+            }
+        }
+
+        public long getGames() {
+            return games.sum();
+        }
+
+        public long getPositions() {
+            return positions.sum();
+        }
+
+        public long getSkippedGames() {
+            return skipped.sum();
+        }
+
+        public void shutdown() {
+            pool.shutdown();
+        }
+    }
+
+    // Paczka rekordów jednego wątku: klucz i (ruch | wynik << 16) w tablicach prymitywów
+    private static final class Run {
+        final long[] keys = new long[Builder.RUN_SIZE];
+        final int[] records = new int[Builder.RUN_SIZE];
+        int size;
+    }
+
+    // Pozycje i ruchy bieżącej partii wątku, do pomijania powtórzeń
+    private static final class Played {
+        long[] keys = new long[256];
+        int[] moves = new int[256];
+
+        void set(int ply, long key, int move) {
+            if (ply == keys.length) {
+                keys = Arrays.copyOf(keys, ply * 2);
+                moves = Arrays.copyOf(moves, ply * 2);
+            }
+            keys[ply] = key;
+            moves[ply] = move;
+        }
+    }
+
+    // Sortowanie szybkie po (klucz, ruch) z podziałem Hoare'a - dobrze znosi wiele powtórzeń tej samej pozycji
+    private static void sort(long[] keys, int[] records, int low, int high) {
+        while (high - low > 16) {
+            int middle = (low + high) >>> 1;
+            long pivotKey = keys[middle];
+            int pivotMove = records[middle] & 0xFFFF;
+            int i = low - 1;
+            int j = high + 1;
+            while (true) {
+                do i++; while (less(keys[i], records[i] & 0xFFFF, pivotKey, pivotMove));
+                do j--; while (less(pivotKey, pivotMove, keys[j], records[j] & 0xFFFF));
+                if (i >= j) break;
+                swap(keys, records, i, j);
+            }
+
+            // Rekurencja na krótszej części, dłuższa w pętli
+            if (j - low < high - j) {
+                sort(keys, records, low, j);
+                low = j + 1;
+            } else {
+                sort(keys, records, j + 1, high);
+                high = j;
+            }
+        }
+
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && less(keys[j], records[j] & 0xFFFF, keys[j - 1], records[j - 1] & 0xFFFF); j--) {
+                swap(keys, records, j, j - 1);
+            }
+        }
+    }
+
+    private static boolean less(long key, int move, long otherKey, int otherMove) {
+        return key < otherKey || (key == otherKey && move < otherMove);
+    }
+
+    private static void swap(long[] keys, int[] records, int i, int j) {
+        long key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        int record = records[i];
+        records[i] = records[j];
+        records[j] = record;
+    }
+
+    // Zapis posortowanych rekordów; kolejne rekordy o tym samym (klucz, ruch) są sumowane
+    private static final class EntryWriter implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        private long count;
+
+        private boolean pending;
+        private long key;
+        private int move;
+        private int games;
+        private int whiteWins;
+        private int draws;
+        private int blackWins;
+
+        EntryWriter(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            channel.position(HEADER);
+        }
+
+        void add(long key, int move, int games, int whiteWins, int draws, int blackWins) throws IOException {
+            if (pending && key == this.key && move == this.move) {
+                this.games += games;
+                this.whiteWins += whiteWins;
+                this.draws += draws;
+                this.blackWins += blackWins;
+                return;
+            }
+            if (pending) write();
+
+            pending = true;
+            this.key = key;
+            this.move = move;
+            this.games = games;
+            this.whiteWins = whiteWins;
+            this.draws = draws;
+            this.blackWins = blackWins;
+        }
+
+        private void write() throws IOException {
+            if (buffer.remaining() < ENTRY) drain();
+            buffer.putLong(key).putShort((short) move).putShort((short) 0)
+                .putInt(games).putInt(whiteWins).putInt(draws).putInt(blackWins).putInt(0);
+            count++;
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (pending) write();
+                drain();
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(ENTRY).putLong(count).flip();
+                channel.write(header, 0);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    // Odczyt pliku paczki przy scalaniu
+    private static final class Cursor {
+        static final Comparator<Cursor> ORDER = (a, b) ->
+            (a.key != b.key) ? Long.compare(a.key, b.key) : Integer.compare(a.move, b.move);
+
+        private final MappedByteBuffer buffer;
+        private final long size;
+        private long index = -1;
+
+        long key;
+        int move;
+        int games;
+        int whiteWins;
+        int draws;
+        int blackWins;
+
+        Cursor(FileChannel channel) throws IOException {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            size = buffer.getLong(8);
+        }
+
+        boolean next() {
+            if (++index >= size) return false;
+            int offset = HEADER + (int) index * ENTRY;
+            key = buffer.getLong(offset);
+            move = buffer.getShort(offset + 8) & 0xFFFF;
+            games = buffer.getInt(offset + 12);
+            whiteWins = buffer.getInt(offset + 16);
+            draws = buffer.getInt(offset + 20);
+            blackWins = buffer.getInt(offset + 24);
+            return true;
+        }
+    }
+
+    // Użycie: java engine.PositionBook build <baza> <plik.pgn|dziennik>... [--threads n]
+    //         java engine.PositionBook query <baza> [fen]
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.out.println("Usage: java engine.PositionBook build <book> <file.pgn|journal>... [--threads n]");
+            System.out.println("       java engine.PositionBook query <book> [fen]");
+            return;
+        }
+
+        Path path = Paths.get(args[1]);
+        if (args[0].equals("query")) {
+            try (PositionBook book = PositionBook.open(path)) {
+                Board board = new Board();
+                Fen.load(board, (args.length > 2) ? args[2] : Fen.START_POSITION);
+                long start = System.nanoTime();
+                List<Entry> entries = book.lookup(board);
+                long nanos = System.nanoTime() - start;
+                for (Entry entry : entries) {
+                    System.out.println(entry);
+                }
+                System.out.printf("Entries: %d  lookup: %.1fus%n", book.size(), nanos / 1e3);
+            }
+            return;
+        }
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<Path> sources = new ArrayList<>();
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else {
+                sources.add(Paths.get(args[i]));
+            }
+        }
+
+        Path temp = path.toAbsolutePath().getParent();
+        Builder builder = new Builder(threads, temp);
+        long start = System.nanoTime();
+        try {
+            for (Path source : sources) {
+                if (source.getFileName().toString().toLowerCase().endsWith(".pgn")) {
+                    builder.addPgn(source);
+                } else {
+                    builder.addJournal(source);
+                }
+            }
+            builder.build(path);
+        } finally {
+            builder.shutdown();
+        }
+        double seconds = Math.max(1L, System.nanoTime() - start) / 1e9;
+
+        try (PositionBook book = PositionBook.open(path)) {
+            System.out.printf("Games: %d (%d skipped)  positions: %d  entries: %d  time: %.3fs  %.0f positions/s  threads: %d%n",
+                builder.getGames(), builder.getSkippedGames(), builder.getPositions(), book.size(), seconds,
+                builder.getPositions() / seconds, threads);
+        }
+    }
+}
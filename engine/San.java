@@ -0,0 +1,145 @@
+package engine;
+
+// Notacja algebraiczna (SAN, np. "Nbd7", "exd5", "O-O", "e8=Q+") rozwiązywana względem legalnych ruchów pozycji
+public class San {
+    private static final String PIECE_LETTERS = "PNBRQK";
+
+    private San() {
+        throw new AssertionError("Just Helper!");
+    }
+
+    // Ruch pasujący do zapisu albo Move.NONE, gdy żaden legalny ruch nie pasuje lub zapis jest niejednoznaczny
+    public static int parse(Board board, MoveList legal, String san) {
+        MoveGenerator.legalMoves(board, legal);
+
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) end--;
+        if (end < 2) return Move.NONE;
+
+        if (isCastling(san, end)) {
+            boolean queenSide = end >= 5;
+            for (int i = 0; i < legal.size(); i++) {
+                int move = legal.get(i);
+                if (Move.isCastling(move) && (Move.to(move) < Move.from(move)) == queenSide) return move;
+            }
+            return Move.NONE;
+        }
+
+        int start = 0;
+        int type = Board.PAWN;
+        int letter = PIECE_LETTERS.indexOf(san.charAt(0));
+        if (letter > 0) {
+            type = letter;
+            start = 1;
+        }
+
+        // Promocja: "e8=Q" albo "e8Q"
+        int promotion = Board.NO_PIECE;
+        int promotionLetter = PIECE_LETTERS.indexOf(Character.toUpperCase(san.charAt(end - 1)));
+        if (type == Board.PAWN && promotionLetter > 0 && end > 2) {
+            promotion = promotionLetter;
+            end--;
+            if (san.charAt(end - 1) == '=') end--;
+        }
+
+        if (end - start < 2) return Move.NONE;
+        int file = san.charAt(end - 2) - 'a';
+        int rank = san.charAt(end - 1) - '1';
+        if (file < 0 || file > 7 || rank < 0 || rank > 7) return Move.NONE;
+        int to = Board.square(file, rank);
+
+        // Ujednoznacznienie: kolumna i/lub rząd pola startowego, znak bicia zapamiętany dla pionów
+        int fromFile = -1;
+        int fromRank = -1;
+        boolean capture = false;
+        for (int i = start; i < end - 2; i++) {
+            char c = san.charAt(i);
+            if (c >= 'a' && c <= 'h') {
+                fromFile = c - 'a';
+            } else if (c >= '1' && c <= '8') {
+                fromRank = c - '1';
+            } else if (c == 'x' || c == ':') {
+                capture = true;
+            } else if (c != '-') {
+                return Move.NONE;
+            }
+        }
+
+        // Pion: "e4" to tylko ruch po kolumnie bez bicia, bicie zawsze z kolumną startową ("exd5", stare "ed5")
+        if (type == Board.PAWN) {
+            if (capture && fromFile < 0) return Move.NONE;
+            capture = fromFile >= 0 && fromFile != file;
+            if (!capture) fromFile = file;
+        }
+
+        int found = Move.NONE;
+        for (int i = 0; i < legal.size(); i++) {
+            int move = legal.get(i);
+            int from = Move.from(move);
+            if (Move.to(move) != to || Board.typeOf(Move.piece(move)) != type || Move.promotion(move) != promotion) continue;
+            if (fromFile >= 0 && Board.file(from) != fromFile) continue;
+            if (fromRank >= 0 && Board.rank(from) != fromRank) continue;
+            if (type == Board.PAWN && Move.isCapture(move) != capture) continue;
+            if (found != Move.NONE) return Move.NONE;
+            found = move;
+        }
+        return found;
+    }
+
+    // Zapis SAN ruchu (bez oznaczenia szacha) - legal to lista legalnych ruchów tej pozycji
+    public static String toSan(MoveList legal, int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        if (Move.isCastling(move)) {
+            return (to > from) ? "O-O" : "O-O-O";
+        }
+
+        StringBuilder san = new StringBuilder(8);
+        int type = Board.typeOf(Move.piece(move));
+        if (type == Board.PAWN) {
+            if (Move.isCapture(move)) san.append((char) ('a' + Board.file(from)));
+        } else {
+            san.append(PIECE_LETTERS.charAt(type));
+
+            // Inna figura tego samego typu może dojść na to samo pole
+            boolean sameFile = false;
+            boolean sameRank = false;
+            boolean ambiguous = false;
+            for (int i = 0; i < legal.size(); i++) {
+                int other = legal.get(i);
+                int otherFrom = Move.from(other);
+                if (otherFrom == from || Move.to(other) != to || Move.piece(other) != Move.piece(move)) continue;
+                ambiguous = true;
+                sameFile |= Board.file(otherFrom) == Board.file(from);
+                sameRank |= Board.rank(otherFrom) == Board.rank(from);
+            }
+            if (ambiguous) {
+                if (!sameFile) {
+                    san.append((char) ('a' + Board.file(from)));
+                } else if (!sameRank) {
+                    san.append((char) ('1' + Board.rank(from)));
+                } else {
+                    san.append(Fen.squareName(from));
+                }
+            }
+        }
+
+        if (Move.isCapture(move)) san.append('x');
+        san.append(Fen.squareName(to));
+        if (Move.promotion(move) != Board.NO_PIECE) {
+            san.append('=').append(PIECE_LETTERS.charAt(Move.promotion(move)));
+        }
+        return san.toString();
+    }
+
+    private static boolean isCastling(String san, int end) {
+        // "O-O", "O-O-O" oraz spotykane w starych plikach "0-0", "0-0-0"
+        if (end != 3 && end != 5) return false;
+        for (int i = 0; i < end; i++) {
+            char c = san.charAt(i);
+            boolean expected = (i % 2 == 0) ? (c == 'O' || c == '0') : c == '-';
+            if (!expected) return false;
+        }
+        return true;
+    }
+}
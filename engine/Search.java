@@ -0,0 +1,339 @@
+package engine;
+
+// Przeszukiwanie alfa-beta (negamax) z iteracyjnym pogłębianiem, przeszukiwaniem spoczynkowym i tablicą transpozycji.
+// Działa na własnej kopii planszy, więc może być uruchomione w osobnym wątku.
+public class Search {
+    public static final int MAX_PLY = 128;
+    public static final int INFINITY = 32000;
+    public static final int MATE = 31000;
+
+    // Kolejność ruchów: ruch z tablicy, bicia (MVV-LVA), ruchy "killer", potem historia
+    private static final int HASH_MOVE_SCORE = 1_000_000;
+    private static final int CAPTURE_SCORE = 100_000;
+    private static final int KILLER_SCORE = 90_000;
+    private static final int HISTORY_LIMIT = 60_000;
+    private static final int QUIET = -1;
+
+    private static final long CHECK_INTERVAL = 2047;
+
+    public interface Listener {
+        void iteration(int depth, int score, long nodes, long nanos, int bestMove);
+    }
+
+    private final Board board = new Board();
+    private final TranspositionTable table;
+    private final MoveList[] moves = new MoveList[MAX_PLY + 1];
+    private final int[][] orderScores = new int[MAX_PLY + 1][MoveList.CAPACITY];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    private final int[][] history = new int[12][64];
+    private Listener listener;
+    private int firstDepth = 1;
+
+    private volatile boolean stopped;
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    private int rootBestMove;
+
+    private int bestMove;
+    private int bestScore;
+    private int completedDepth;
+
+    public Search(TranspositionTable table) {
+        this.table = table;
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = new MoveList();
+        }
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    // Pomocnicze wątki przeszukiwania równoległego zaczynają od innej głębokości, żeby nie liczyć tego samego
+    void setFirstDepth(int firstDepth) {
+        this.firstDepth = firstDepth;
+    }
+
+    // Najlepszy ruch dla strony na ruchu; 0 oznacza brak limitu czasu albo węzłów
+    public int search(Board position, int maxDepth, long timeMillis, long maxNodes) {
+        stopped = false;
+        table.newSearch();
+        return run(position, maxDepth, timeMillis, maxNodes);
+    }
+
+    // Bez zerowania flagi zatrzymania i nowej generacji tablicy - robi to wywołujący, raz na całe przeszukiwanie,
+    // żeby stop() wysłane przed startem wątku nie przepadło
+    int run(Board position, int maxDepth, long timeMillis, long maxNodes) {
+        long start = System.nanoTime();
+        board.copyFrom(position);
+        nodes = 0;
+        nodeLimit = (maxNodes > 0) ? maxNodes : Long.MAX_VALUE;
+        deadline = (timeMillis > 0) ? start + timeMillis * 1_000_000L : Long.MAX_VALUE;
+        bestMove = Move.NONE;
+        bestScore = 0;
+        completedDepth = 0;
+        prepareOrdering();
+
+        MoveGenerator.legalMoves(board, moves[0]);
+        if (moves[0].isEmpty()) return Move.NONE;
+        bestMove = moves[0].get(0);
+
+        for (int depth = Math.min(firstDepth, maxDepth); depth <= Math.min(maxDepth, MAX_PLY); depth++) {
+            rootBestMove = Move.NONE;
+            int score = negamax(depth, 0, -INFINITY, INFINITY);
+            if (stopped) break; // Przerwana iteracja nie jest wiarygodna - zostaje wynik poprzedniej
+
+            bestMove = rootBestMove;
+            bestScore = score;
+            completedDepth = depth;
+            if (listener != null) listener.iteration(depth, score, nodes, System.nanoTime() - start, bestMove);
+            if (Math.abs(score) >= MATE - depth) break; // Znaleziony mat nie poprawi się z głębokością
+        }
+        return bestMove;
+    }
+
+    // Można wołać z innego wątku
+    public void stop() {
+        stopped = true;
+    }
+
+    void reset() {
+        stopped = false;
+        nodes = 0;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    public int getBestScore() {
+        return bestScore;
+    }
+
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        if (ply > 0 && (board.getHalfmoveClock() >= 100 || board.isRepetition())) return 0;
+
+        int side = board.getSideToMove();
+        boolean inCheck = board.isKingInCheck(side);
+        if (inCheck) depth++; // Szach przedłuża przeszukiwanie o jeden półruch
+        if (depth <= 0) return quiescence(ply, alpha, beta);
+        if (ply >= MAX_PLY) return Evaluation.evaluate(board);
+        if (++nodes >= nodeLimit || ((nodes & CHECK_INTERVAL) == 0 && System.nanoTime() > deadline)) stopped = true;
+
+        long key = board.getKey();
+        int hashMove = Move.NONE;
+        long entry = table.probe(key);
+        if (entry != TranspositionTable.MISS) {
+            hashMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = scoreFromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+                        || (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        MoveList list = moves[ply];
+        MoveGenerator.legalMoves(board, list);
+        if (list.isEmpty()) return inCheck ? -MATE + ply : 0;
+        scoreMoves(list, ply, hashMove, false);
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMoveHere = Move.NONE;
+        for (int i = 0; i < list.size(); i++) {
+            int move = pickNext(list, ply, i);
+            board.makeMove(move);
+            int score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            board.unmakeMove(move);
+            if (stopped) return 0;
+
+            if (score > best) {
+                best = score;
+                bestMoveHere = move;
+                if (ply == 0) rootBestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        if (!isTactical(move)) rememberQuiet(move, ply, depth);
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = (best >= beta) ? TranspositionTable.LOWER_BOUND
+            : (best > originalAlpha) ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND;
+        table.store(key, TranspositionTable.packSearch(bestMoveHere, scoreToTable(best, ply), bound), depth);
+        return best;
+    }
+
+    // Tylko bicia i promocje (w szachu - wszystkie ruchy), żeby ocena nie zapadała w środku wymiany
+    private int quiescence(int ply, int alpha, int beta) {
+        if (++nodes >= nodeLimit || ((nodes & CHECK_INTERVAL) == 0 && System.nanoTime() > deadline)) stopped = true;
+        if (ply >= MAX_PLY) return Evaluation.evaluate(board);
+
+        boolean inCheck = board.isKingInCheck(board.getSideToMove());
+        int best = -INFINITY;
+        if (!inCheck) {
+            best = Evaluation.evaluate(board);
+            if (best >= beta) return best;
+            if (best > alpha) alpha = best;
+        }
+
+        MoveList list = moves[ply];
+        MoveGenerator.legalMoves(board, list);
+        if (inCheck && list.isEmpty()) return -MATE + ply;
+        scoreMoves(list, ply, Move.NONE, !inCheck);
+
+        for (int i = 0; i < list.size(); i++) {
+            int move = pickNext(list, ply, i);
+            if (orderScores[ply][i] == QUIET) break; // Dalej są już tylko ciche ruchy
+
+            board.makeMove(move);
+            int score = -quiescence(ply + 1, -beta, -alpha);
+            board.unmakeMove(move);
+            if (stopped) return 0;
+
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) break;
+                }
+            }
+        }
+        return best;
+    }
+
+    private void scoreMoves(MoveList list, int ply, int hashMove, boolean tacticalOnly) {
+        int[] scores = orderScores[ply];
+        for (int i = 0; i < list.size(); i++) {
+            int move = list.get(i);
+            if (move == hashMove) {
+                scores[i] = HASH_MOVE_SCORE;
+            } else if (isTactical(move)) {
+                int attacker = Board.typeOf(Move.piece(move));
+                int victim = Board.typeOf(Move.captured(move));
+                int promotion = Move.promotion(move);
+                scores[i] = CAPTURE_SCORE + (Move.isCapture(move) ? victim * 10 : 0) - attacker
+                    + ((promotion == Board.NO_PIECE) ? 0 : promotion * 10);
+            } else if (tacticalOnly) {
+                scores[i] = QUIET;
+            } else if (move == killers[ply][0]) {
+                scores[i] = KILLER_SCORE;
+            } else if (move == killers[ply][1]) {
+                scores[i] = KILLER_SCORE - 1;
+            } else {
+                scores[i] = history[Move.piece(move)][Move.to(move)];
+            }
+        }
+    }
+
+    // Wybór najlepiej ocenionego z pozostałych ruchów - zwykle odcięcie następuje po kilku pierwszych
+    private int pickNext(MoveList list, int ply, int index) {
+        int[] scores = orderScores[ply];
+        int best = index;
+        for (int i = index + 1; i < list.size(); i++) {
+            if (scores[i] > scores[best]) best = i;
+        }
+        list.swap(index, best);
+        int score = scores[index];
+        scores[index] = scores[best];
+        scores[best] = score;
+        return list.get(index);
+    }
+
+    private void rememberQuiet(int move, int ply, int depth) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+
+        int[] counters = history[Move.piece(move)];
+        counters[Move.to(move)] += depth * depth;
+        if (counters[Move.to(move)] > HISTORY_LIMIT) {
+            for (int[] row : history) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] /= 2;
+                }
+            }
+        }
+    }
+
+    // Ruchy "killer" dotyczą poprzedniej pozycji, a historia tylko słabnie między przeszukiwaniami
+    private void prepareOrdering() {
+        for (int[] pair : killers) {
+            pair[0] = Move.NONE;
+            pair[1] = Move.NONE;
+        }
+        for (int[] row : history) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] /= 8;
+            }
+        }
+    }
+
+    private static boolean isTactical(int move) {
+        return Move.isCapture(move) || Move.promotion(move) != Board.NO_PIECE;
+    }
+
+    // Mat zapisany w tablicy liczony od bieżącej pozycji, a nie od korzenia
+    private static int scoreToTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) return score + ply;
+        if (score <= -MATE + MAX_PLY) return score - ply;
+        return score;
+    }
+
+    private static int scoreFromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) return score - ply;
+        if (score <= -MATE + MAX_PLY) return score + ply;
+        return score;
+    }
+
+    // Użycie: java engine.Search [depth] [--time ms] [--nodes n] [--hash MB] [fen]
+    public static void main(String[] args) {
+        int depth = MAX_PLY;
+        long time = 5000;
+        long maxNodes = 0;
+        int hash = 64;
+        StringBuilder fen = new StringBuilder();
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--time") && i + 1 < args.length) {
+                time = Long.parseLong(args[++i]);
+            } else if (arg.equals("--nodes") && i + 1 < args.length) {
+                maxNodes = Long.parseLong(args[++i]);
+            } else if (arg.equals("--hash") && i + 1 < args.length) {
+                hash = Integer.parseInt(args[++i]);
+            } else if (fen.length() == 0 && arg.matches("\\d+")) {
+                depth = Integer.parseInt(arg);
+            } else {
+                fen.append(fen.length() == 0 ? "" : " ").append(arg);
+            }
+        }
+
+        Board board = new Board();
+        Fen.load(board, fen.length() == 0 ? Fen.START_POSITION : fen.toString());
+        Search search = new Search(new TranspositionTable(hash));
+        search.setListener((d, score, nodes, nanos, move) -> System.out.printf(
+            "depth %2d  score %6d  nodes %12d  time %8.3fs  %8.0f knps  best %s%n",
+            d, score, nodes, nanos / 1e9, nodes * 1e6 / Math.max(1L, nanos), Move.toString(move)));
+
+        int best = search.search(board, depth, time, maxNodes);
+        System.out.println("bestmove " + (best == Move.NONE ? "(none)" : Move.toString(best)));
+    }
+}
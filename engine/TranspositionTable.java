@@ -0,0 +1,123 @@
+package engine;
+
+import java.util.Arrays;
+
+// Tablica transpozycji bez blokad: każdy wpis to dwa longi (klucz ^ dane, dane). Wpis rozerwany przez równoległy
+// zapis innego wątku nie przejdzie sprawdzenia klucza i zostanie potraktowany jak brak trafienia.
+public class TranspositionTable {
+    public static final long MISS = 0L;
+
+    // Rodzaj oceny zapisanej przez przeszukiwanie
+    public static final int EXACT = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int UPPER_BOUND = 3;
+
+    private static final int ENTRY_LONGS = 2;
+    private static final int BUCKET_ENTRIES = 2;
+    private static final int PAYLOAD_BITS = 48;
+    private static final long PAYLOAD_MASK = (1L << PAYLOAD_BITS) - 1;
+
+    // Dane: bity 0-47 treść, 48-55 głębokość, 56-63 generacja (zawsze > 0, więc dane nigdy nie są zerem)
+    private long[] table;
+    private int generation = 1;
+
+    public TranspositionTable(int megabytes) {
+        resize(megabytes);
+    }
+
+    // Rozmiar zaokrąglony w dół do potęgi dwójki kubełków
+    public void resize(int megabytes) {
+        long bytes = Math.max(1, megabytes) * 1024L * 1024L;
+        long buckets = Long.highestOneBit(bytes / (ENTRY_LONGS * BUCKET_ENTRIES * Long.BYTES));
+        buckets = Math.min(buckets, 1L << 26);
+        table = new long[(int) buckets * ENTRY_LONGS * BUCKET_ENTRIES];
+        generation = 1;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0L);
+        generation = 1;
+    }
+
+    // Nowe przeszukiwanie: wpisy ze starszych generacji można nadpisywać niezależnie od głębokości
+    public void newSearch() {
+        generation = (generation == 255) ? 1 : generation + 1;
+    }
+
+    public long probe(long key) {
+        long[] entries = table;
+        int index = bucketIndex(key, entries.length);
+        for (int i = 0; i < BUCKET_ENTRIES; i++, index += ENTRY_LONGS) {
+            long data = entries[index + 1];
+            if ((entries[index] ^ data) == key && data != MISS) return data;
+        }
+        return MISS;
+    }
+
+    // Pierwszy wpis w kubełku zastępowany tylko głębszym (albo starym), drugi zawsze
+    public void store(long key, long payload, int depth) {
+        long[] entries = table;
+        int index = bucketIndex(key, entries.length);
+        long data = (payload & PAYLOAD_MASK) | ((long) Math.max(0, Math.min(depth, 255)) << 48) | ((long) generation << 56);
+
+        long first = entries[index + 1];
+        boolean sameKey = (entries[index] ^ first) == key;
+        if (first == MISS || sameKey || generation(first) != generation || depth(first) <= depth) {
+            entries[index] = key ^ data;
+            entries[index + 1] = data;
+        } else {
+            entries[index + ENTRY_LONGS] = key ^ data;
+            entries[index + ENTRY_LONGS + 1] = data;
+        }
+    }
+
+    // Zapełnienie w promilach, liczone na próbce z początku tablicy
+    public int hashfull() {
+        int sample = Math.min(1000, table.length / ENTRY_LONGS);
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            long data = table[i * ENTRY_LONGS + 1];
+            if (data != MISS && generation(data) == generation) used++;
+        }
+        return used * 1000 / Math.max(1, sample);
+    }
+
+    public long capacity() {
+        return table.length / ENTRY_LONGS;
+    }
+
+    // Indeks z długości przekazanej tablicy, bo inny wątek może właśnie zmieniać jej rozmiar
+    private static int bucketIndex(long key, int length) {
+        int bucket = (int) (key >>> 32) & ((length / (ENTRY_LONGS * BUCKET_ENTRIES)) - 1);
+        return bucket * ENTRY_LONGS * BUCKET_ENTRIES;
+    }
+
+    public static long payload(long data) {
+        return data & PAYLOAD_MASK;
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> 48) & 0xFF;
+    }
+
+    private static int generation(long data) {
+        return (int) (data >>> 56) & 0xFF;
+    }
+
+    // Treść wpisu przeszukiwania: ruch (28 bitów), ocena (16 bitów ze znakiem) i rodzaj oceny (2 bity)
+    public static long packSearch(int move, int score, int bound) {
+        return (move & 0xFFFFFFFL) | ((long) (score & 0xFFFF) << 28) | ((long) bound << 44);
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0xFFFFFFFL);
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> 28);
+    }
+
+    public static int bound(long data) {
+        return (int) (data >>> 44) & 3;
+    }
+}
@@ -0,0 +1,349 @@
+package engine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Tryb UCI: polecenia ze standardowego wejścia, przeszukiwanie w osobnym wątku, więc pętla poleceń
+// odpowiada na "stop" i "isready" także w trakcie liczenia
+public class Uci {
+    private static final String NAME = "Chess";
+    private static final String AUTHOR = "LukaszAndzej";
+
+    private static final int DEFAULT_HASH_MB = 16;
+    private static final int MAX_HASH_MB = 4096;
+    private static final int MAX_THREADS = 256;
+
+    // Zapas na opóźnienia GUI i komunikacji przy grze na czas
+    private static final long MOVE_OVERHEAD_MILLIS = 30;
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+
+    private final BufferedReader in;
+    private final PrintStream out;
+
+    private final Board board = new Board();
+    private final Board positionBoard = new Board(); // "position" budowane tu, do board trafia dopiero w całości
+    private final MoveList positionMoves = new MoveList();
+    private final Board pvBoard = new Board();
+    private final MoveList pvMoves = new MoveList();
+    private final TranspositionTable table = new TranspositionTable(DEFAULT_HASH_MB);
+    private ParallelSearch search = new ParallelSearch(table, 1);
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> daemon(runnable, "uci-search"));
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "uci-timer"));
+    private Future<?> running;
+    private ScheduledFuture<?> pendingStop;
+
+    // "go infinite" i "go ponder": bestmove dopiero po "stop" albo "ponderhit"
+    private final Object lock = new Object();
+    private boolean waitForStop;
+    private long ponderBudget;
+
+    public Uci(InputStream in, PrintStream out) {
+        this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.out = out;
+        Fen.load(board, Fen.START_POSITION);
+    }
+
+    public void run() throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            String[] tokens = line.trim().split("\\s+");
+            if (tokens[0].isEmpty()) continue;
+
+            // Błędne polecenie (zły FEN, liczba, brak wartości) nie kończy silnika - GUI dostaje opis w info string
+            try {
+                switch (tokens[0]) {
+                    case "uci":
+                        send("id name " + NAME);
+                        send("id author " + AUTHOR);
+                        send("option name Hash type spin default " + DEFAULT_HASH_MB + " min 1 max " + MAX_HASH_MB);
+                        send("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+                        send("option name Ponder type check default false");
+                        send("uciok");
+                        break;
+                    case "isready":
+                        send("readyok");
+                        break;
+                    case "ucinewgame":
+                        stopSearch();
+                        table.clear();
+                        break;
+                    case "setoption":
+                        setOption(tokens);
+                        break;
+                    case "position":
+                        stopSearch();
+                        position(tokens);
+                        break;
+                    case "go":
+                        stopSearch();
+                        go(tokens);
+                        break;
+                    case "stop":
+                        stopSearch();
+                        break;
+                    case "ponderhit":
+                        ponderHit();
+                        break;
+                    case "quit":
+                        stopSearch();
+                        search.shutdown();
+                        return;
+                    default:
+                        // Nieznane polecenia UCI każe ignorować
+                        break;
+                }
+            } catch (RuntimeException e) {
+                send("info string error in '" + line.trim() + "': " + e);
+                if (tokens[0].equals("go")) send("bestmove 0000"); // GUI czeka na odpowiedź na go
+            }
+        }
+        stopSearch();
+    }
+
+    private void setOption(String[] tokens) {
+        String name = value(tokens, "name", "value");
+        String value = value(tokens, "value", null);
+        if (name == null || value == null) return;
+
+        stopSearch();
+        if (name.equalsIgnoreCase("Hash")) {
+            table.resize(clamp(Integer.parseInt(value), 1, MAX_HASH_MB));
+        } else if (name.equalsIgnoreCase("Threads")) {
+            search.shutdown();
+            search = new ParallelSearch(table, clamp(Integer.parseInt(value), 1, MAX_THREADS));
+        }
+    }
+
+    // position [startpos | fen <pole...>] [moves <ruch...>]
+    // Błędny FEN albo nielegalny ruch zostawia poprzednią pozycję - nigdy jej fragment
+    private void position(String[] tokens) {
+        int index = 1;
+        if (index < tokens.length && tokens[index].equals("startpos")) {
+            Fen.load(positionBoard, Fen.START_POSITION);
+            index++;
+        } else if (index < tokens.length && tokens[index].equals("fen")) {
+            StringBuilder fen = new StringBuilder();
+            for (index++; index < tokens.length && !tokens[index].equals("moves"); index++) {
+                fen.append(tokens[index]).append(' ');
+            }
+            Fen.load(positionBoard, fen.toString());
+        } else {
+            positionBoard.copyFrom(board);
+        }
+
+        if (index < tokens.length && tokens[index].equals("moves")) {
+            for (index++; index < tokens.length; index++) {
+                int move = findMove(positionBoard, positionMoves, tokens[index]);
+                if (move == Move.NONE) {
+                    send("info string illegal move " + tokens[index]);
+                    return;
+                }
+                positionBoard.makeMove(move);
+            }
+        }
+        board.copyFrom(positionBoard);
+    }
+
+    private void go(String[] tokens) {
+        int depth = Search.MAX_PLY;
+        long nodes = 0;
+        long moveTime = 0;
+        long time = 0;
+        long increment = 0;
+        int movesToGo = 0;
+        boolean infinite = false;
+        boolean ponder = false;
+        int side = board.getSideToMove();
+
+        for (int i = 1; i < tokens.length; i++) {
+            String token = tokens[i];
+            boolean hasValue = i + 1 < tokens.length;
+            if (token.equals("infinite")) {
+                infinite = true;
+            } else if (token.equals("ponder")) {
+                ponder = true;
+            } else if (hasValue && token.equals("depth")) {
+                depth = clamp(Integer.parseInt(tokens[++i]), 1, Search.MAX_PLY);
+            } else if (hasValue && token.equals("nodes")) {
+                nodes = Long.parseLong(tokens[++i]);
+            } else if (hasValue && token.equals("movetime")) {
+                moveTime = Long.parseLong(tokens[++i]);
+            } else if (hasValue && token.equals(side == Board.WHITE ? "wtime" : "btime")) {
+                time = Long.parseLong(tokens[++i]);
+            } else if (hasValue && token.equals(side == Board.WHITE ? "winc" : "binc")) {
+                increment = Long.parseLong(tokens[++i]);
+            } else if (hasValue && token.equals("movestogo")) {
+                movesToGo = Integer.parseInt(tokens[++i]);
+            }
+        }
+
+        long budget = (moveTime > 0) ? Math.max(1, moveTime - MOVE_OVERHEAD_MILLIS) : timeBudget(time, increment, movesToGo);
+        Board position = new Board();
+        position.copyFrom(board);
+
+        synchronized (lock) {
+            waitForStop = infinite || ponder;
+            ponderBudget = ponder ? budget : 0;
+        }
+
+        // Przy ponder limit czasu zaczyna biec dopiero po "ponderhit"
+        long searchTime = (infinite || ponder) ? 0 : budget;
+        int maxDepth = depth;
+        long maxNodes = nodes;
+        ParallelSearch current = search;
+        current.prepare();
+        current.setListener((d, score, n, nanos, move) -> info(current, position, d, score, nanos, move));
+        running = worker.submit(() -> {
+            int best = current.run(position, maxDepth, searchTime, maxNodes);
+            synchronized (lock) {
+                while (waitForStop) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+            }
+            send("bestmove " + (best == Move.NONE ? "0000" : Move.toString(best)));
+        });
+    }
+
+    // Część pozostałego czasu na jeden ruch plus większość dodatku za ruch
+    private static long timeBudget(long time, long increment, int movesToGo) {
+        if (time <= 0) return 0;
+        long budget = time / ((movesToGo > 0) ? movesToGo : DEFAULT_MOVES_TO_GO) + increment * 3 / 4;
+        return Math.max(1, Math.min(budget, time - MOVE_OVERHEAD_MILLIS));
+    }
+
+    private void ponderHit() {
+        long budget;
+        synchronized (lock) {
+            budget = ponderBudget;
+            waitForStop = false;
+            lock.notifyAll();
+        }
+        ParallelSearch current = search;
+        if (budget > 0) {
+            pendingStop = timer.schedule(current::stop, budget, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Zatrzymuje przeszukiwanie i czeka na wypisanie bestmove - przerwanie następuje przy najbliższym węźle
+    private void stopSearch() {
+        if (running == null) return;
+
+        synchronized (lock) {
+            waitForStop = false;
+            lock.notifyAll();
+        }
+        search.stop();
+        if (pendingStop != null) {
+            pendingStop.cancel(false);
+            pendingStop = null;
+        }
+
+        try {
+            running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            send("info string search failed: " + e.getCause());
+        }
+        running = null;
+    }
+
+    private void info(ParallelSearch current, Board position, int depth, int score, long nanos, int bestMove) {
+        long nodes = current.getNodes();
+        long millis = nanos / 1_000_000L;
+        String value = (Math.abs(score) >= Search.MATE - Search.MAX_PLY)
+            ? "mate " + ((score > 0) ? (Search.MATE - score + 1) / 2 : -(Search.MATE + score) / 2)
+            : "cp " + score;
+        send("info depth " + depth + " score " + value + " nodes " + nodes + " nps " + (nodes * 1_000_000_000L / Math.max(1L, nanos))
+            + " time " + millis + " hashfull " + table.hashfull() + " pv " + principalVariation(position, bestMove, depth));
+    }
+
+    // Wariant główny odtworzony z tablicy transpozycji: kolejne zapisane ruchy, dopóki są legalne
+    private String principalVariation(Board position, int bestMove, int depth) {
+        pvBoard.copyFrom(position);
+        StringBuilder line = new StringBuilder(Move.toString(bestMove));
+        pvBoard.makeMove(bestMove);
+
+        for (int ply = 1; ply < depth; ply++) {
+            long entry = table.probe(pvBoard.getKey());
+            if (entry == TranspositionTable.MISS) break;
+
+            int move = TranspositionTable.move(entry);
+            MoveGenerator.legalMoves(pvBoard, pvMoves);
+            if (!contains(pvMoves, move)) break;
+
+            line.append(' ').append(Move.toString(move));
+            pvBoard.makeMove(move);
+            if (pvBoard.isRepetition()) break;
+        }
+        return line.toString();
+    }
+
+    private static boolean contains(MoveList moves, int move) {
+        for (int i = 0; i < moves.size(); i++) {
+            if (moves.get(i) == move) return true;
+        }
+        return false;
+    }
+
+    private static int findMove(Board board, MoveList moves, String text) {
+        MoveGenerator.legalMoves(board, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            if (Move.toString(moves.get(i)).equals(text)) return moves.get(i);
+        }
+        return Move.NONE;
+    }
+
+    // Wartość po słowie kluczowym aż do słowa kończącego (nazwy opcji mogą mieć spacje)
+    private static String value(String[] tokens, String key, String end) {
+        StringBuilder value = null;
+        for (int i = 1; i < tokens.length; i++) {
+            if (value == null) {
+                if (tokens[i].equals(key)) value = new StringBuilder();
+            } else if (tokens[i].equals(end)) {
+                break;
+            } else {
+                value.append(value.length() == 0 ? "" : " ").append(tokens[i]);
+            }
+        }
+        return (value == null) ? null : value.toString();
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private void send(String line) {
+        synchronized (out) {
+            out.println(line);
+            out.flush();
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    public static void main(String[] args) throws IOException {
+        new Uci(System.in, System.out).run();
+    }
+}
@@ -0,0 +1,79 @@
+package engine;
+
+// Losowe klucze do haszowania pozycji; stałe ziarno, więc klucze są takie same w każdym uruchomieniu
+public class Zobrist {
+    private static final long[][] PIECE_SQUARE = new long[12][64];
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT_FILE = new long[8];
+    private static final long SIDE;
+
+    private static long seed = 0x2545F4914F6CDD1DL;
+
+    static {
+        for (int piece = 0; piece < 12; piece++) {
+            for (int square = 0; square < 64; square++) {
+                PIECE_SQUARE[piece][square] = nextRandom();
+            }
+        }
+
+        // Klucz zestawu praw do roszady to XOR kluczy pojedynczych praw (brak praw = 0)
+        long[] rights = {nextRandom(), nextRandom(), nextRandom(), nextRandom()};
+        for (int mask = 0; mask < 16; mask++) {
+            for (int bit = 0; bit < 4; bit++) {
+                if ((mask & (1 << bit)) != 0) CASTLING[mask] ^= rights[bit];
+            }
+        }
+
+        for (int file = 0; file < 8; file++) {
+            EN_PASSANT_FILE[file] = nextRandom();
+        }
+        SIDE = nextRandom();
+    }
+
+    private Zobrist() {
+        throw new AssertionError("Just Helper!");
+    }
+
+    public static long piece(int piece, int square) {
+        return PIECE_SQUARE[piece][square];
+    }
+
+    public static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    // Plik en passant wchodzi do klucza tylko, gdy strona na ruchu ma piona, który może tam bić -
+    // inaczej ta sama pozycja po różnej kolejności ruchów dostawałaby różne klucze
+    public static long enPassant(Board board) {
+        int square = board.getEnPassantSquare();
+        if (square == Board.NO_SQUARE) return 0L;
+        int side = board.getSideToMove();
+        long capturers = Attacks.pawn(Board.opposite(side), square) & board.pieces(side, Board.PAWN);
+        return (capturers == 0) ? 0L : EN_PASSANT_FILE[Board.file(square)];
+    }
+
+    public static long side() {
+        return SIDE;
+    }
+
+    // Pełne przeliczenie klucza - plansza utrzymuje go przyrostowo, to służy do sprawdzania
+    public static long compute(Board board) {
+        long key = 0L;
+        for (int square = 0; square < 64; square++) {
+            int piece = board.pieceAt(square);
+            if (piece != Board.NO_PIECE) key ^= PIECE_SQUARE[piece][square];
+        }
+        key ^= CASTLING[board.getCastlingRights()];
+        key ^= enPassant(board);
+        if (board.getSideToMove() == Board.BLACK) key ^= SIDE;
+        return key;
+    }
+
+    private static long nextRandom() {
+        // xorshift64*
+        seed ^= seed >>> 12;
+        seed ^= seed << 25;
+        seed ^= seed >>> 27;
+        return seed * 0x2545F4914F6CDD1DL;
+    }
+}
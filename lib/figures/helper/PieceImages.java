@@ -0,0 +1,33 @@
+package lib.figures.helper;
+
+import engine.Board;
+
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+
+// Wspólna pamięć obrazków figur: każdy kolor i typ dekodowany raz na cały proces, od razu w rozmiarze pola.
+// Tworzenie figur nie czyta plików - obrazek pobiera dopiero widok.
+public class PieceImages {
+    private static final String[] FILE_NAMES = {"pawn", "knight", "bishop", "rook", "queen", "king"};
+    private static final int SIZE = 100;
+
+    private static final Image[][] IMAGES = new Image[2][FILE_NAMES.length];
+
+    private PieceImages() {
+        throw new AssertionError("Just Helper!");
+    }
+
+    public static Image get(Color color, int type) {
+        int side = (color == Color.WHITE) ? Board.WHITE : Board.BLACK;
+        synchronized (IMAGES) {
+            Image image = IMAGES[side][type];
+            if (image == null) {
+                // Pliki mają 800x800 - dekodowanie w rozmiarze pola oszczędza pamięć i czas skalowania przy rysowaniu
+                image = new Image(Graphics.buildImagePath(color, FILE_NAMES[type]), SIZE, SIZE, true, true);
+                IMAGES[side][type] = image;
+            }
+            return image;
+        }
+    }
+
+}
@@ -1,8 +1,12 @@
 package lib.interfaces;
 
+import java.util.List;
+
+import engine.Board;
+import engine.MoveGenerator;
+import lib.figures.helper.PieceImages;
 import lib.logic.Position;
 
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.input.ClipboardContent;
 import javafx.scene.input.Dragboard;
@@ -11,20 +15,19 @@ import javafx.scene.paint.Color;
 
 public abstract class Figure implements MoveLogic {
     public static final int TILE_SIZE = 100;
-    protected Image image;
     protected Position position;
     protected Color color;
     protected String name;
+    protected int type;
     protected boolean moved = false;
 
-    public Figure(String imagePath, Color color, Position position) {
-        this.image = new Image(imagePath);
+    public Figure(Color color, Position position) {
         this.color = color;
         this.position = position;
     }
 
     public ImageView getImageView() {
-        ImageView imageView = new ImageView(image);
+        ImageView imageView = new ImageView(PieceImages.get(color, type));
         imageView.setUserData(this);
         imageView.setFitWidth(TILE_SIZE);
         imageView.setFitHeight(TILE_SIZE);
@@ -47,10 +50,19 @@ public abstract class Figure implements MoveLogic {
         });
     }
 
+    @Override
+    public List<Position> getPossibleMoves(final Board board) {
+        return Position.fromBitboard(getTargets(board));
+    }
+
+    @Override
+    public int getPossibleMoves(final Board board, int[] moves, int start) {
+        return MoveGenerator.legalMovesFrom(board, getSquare(), moves, start);
+    }
+
     @Override
     public void move(int newX, int newY) {
-        this.position.setX(newX);
-        this.position.setY(newY);
+        this.position = Position.of(newX, newY);
         this.moved = true;
     }
 
@@ -62,6 +74,12 @@ public abstract class Figure implements MoveLogic {
 
     public Color getColor() { return this.color;}
 
+    public int getType() { return this.type;}
+
+    public int getSide() { return (this.color == Color.WHITE) ? Board.WHITE : Board.BLACK;}
+
+    public int getSquare() { return this.position.getSquare();}
+
     public boolean hasMoved() {
         return moved;
     }
@@ -70,9 +88,9 @@ public abstract class Figure implements MoveLogic {
         this.moved = moved;
     }
 
-    public void setX(int x) {this.position.setX(x);}
+    public void setX(int x) {this.position = Position.of(x, this.position.getY());}
 
-    public void setY(int y) {this.position.setY(y);}
+    public void setY(int y) {this.position = Position.of(this.position.getX(), y);}
 
     public int getX() { return this.position.getX();}
 
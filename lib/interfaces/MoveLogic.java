@@ -1,11 +1,15 @@
 package lib.interfaces;
 
 import java.util.List;
-import java.util.Map;
 
+import engine.Board;
 import lib.logic.Position;
 
 public interface MoveLogic {
     public void move(int newX, int newY);
-    public List<Position> getPossibleMoves(final Map<Position, Figure> figures);
+    public long getTargets(final Board board);
+    public List<Position> getPossibleMoves(final Board board);
+
+    // Legalne ruchy zakodowane jak engine.Move, zapisane do bufora od indeksu start; zwraca indeks za ostatnim ruchem
+    public int getPossibleMoves(final Board board, int[] moves, int start);
 }
@@ -1,30 +1,63 @@
 package lib.logic;
 
-import java.util.Objects;
+import java.util.ArrayList;
+import java.util.List;
 
-public class Position {
-    private int x;
-    private int y;
+// Niezmienne pole planszy: wszystkie 64 instancje są tworzone raz, więc można je porównywać przez ==
+// i bezpiecznie używać jako kluczy w mapach
+public final class Position {
+    private static final Position[] SQUARES = new Position[64];
 
-    public Position(int x, int y) {
+    static {
+        for (int square = 0; square < SQUARES.length; square++) {
+            SQUARES[square] = new Position(square & 7, square >>> 3);
+        }
+    }
+
+    private final int x;
+    private final int y;
+    private final int square;
+
+    private Position(int x, int y) {
         this.x = x;
         this.y = y;
+        this.square = y * 8 + x;
     }
 
-    public int getX() {
-        return x;
+    public static Position of(int x, int y) {
+        if (x < 0 || x >= 8 || y < 0 || y >= 8) {
+            throw new IllegalArgumentException("Position outside the board: (" + x + ", " + y + ")");
+        }
+        return SQUARES[y * 8 + x];
     }
 
-    public void setX(int x) {
-        this.x = x;
+    public static Position of(int square) {
+        return SQUARES[square];
+    }
+
+    public int getX() {
+        return x;
     }
 
     public int getY() {
         return y;
     }
 
-    public void setY(int y) {
-        this.y = y;
+    public int getSquare() {
+        return square;
+    }
+
+    public static Position fromSquare(int square) {
+        return SQUARES[square];
+    }
+
+    public static List<Position> fromBitboard(long bitboard) {
+        List<Position> positions = new ArrayList<>(Long.bitCount(bitboard));
+        while (bitboard != 0) {
+            positions.add(SQUARES[Long.numberOfTrailingZeros(bitboard)]);
+            bitboard &= bitboard - 1;
+        }
+        return positions;
     }
 
     @Override
@@ -34,20 +67,11 @@ public class Position {
 
     @Override
     public boolean equals(Object obj) {
-        if (this == obj) {
-            return true;
-        }
-
-        if (obj == null || getClass() != obj.getClass()) {
-            return false;
-        }
-
-        Position other = (Position) obj;
-        return x == other.x && y == other.y;
+        return this == obj;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(x, y);
+        return square;
     }
 }
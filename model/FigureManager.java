@@ -1,15 +1,14 @@
 package model;
 
+import engine.Metrics;
+import engine.Move;
+import engine.PositionBook;
 import lib.interfaces.Figure;
 import lib.logic.Position;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
 
-import javafx.scene.Node;
+import javafx.scene.Group;
 import javafx.scene.image.ImageView;
 import javafx.scene.input.ClipboardContent;
 import javafx.scene.input.Dragboard;
@@ -17,48 +16,92 @@ import javafx.scene.input.TransferMode;
 import javafx.scene.layout.GridPane;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
+import javafx.scene.text.Text;
 
 
-public class FigureManager {
+// Widok figur: zmiany nanoszone na podstawie zdarzeń z GameStateManager, tylko na polach, których dotyczą
+public class FigureManager implements GameStateManager.Listener {
     private static final int TILE_SIZE = 100;
+    private static final int GRID_SIZE = 8;
 
     private GridPane gridPane;
     private GameStateManager gameStateManager;
-    private Color currentTurn = Color.WHITE;
 
-    private Map<Position, Figure> figuresOld = new HashMap<>();
-    private List<Figure> figures = new ArrayList<>();
-    private List<Rectangle> activeHighlights = new ArrayList<>();
+    // Warstwa podświetleń: 64 komórki tworzone raz, przełączane tylko kolorem wypełnienia
+    private static final Color LEGAL_COLOR = new Color(0, 1, 0, 0.3); // przezroczysty zielony
+    private static final Color CHECK_COLOR = new Color(1, 0, 0, 0.3);
+    private static final Color LAST_MOVE_COLOR = new Color(1, 1, 0, 0.25);
+    private static final Color BOOK_COLOR = new Color(0, 0, 1, 0.2);
+    private final Rectangle[] highlightCells = new Rectangle[64];
+    private long legalHighlights;
+    private long lastMoveHighlights;
+    private long checkHighlight;
+
+    // Ruchy z bazy pozycji: pole docelowe podświetlone, na nim opis ruchu ze statystyką (też 64 węzły tworzone raz)
+    private final Text[] bookLabels = new Text[64];
+    private long bookHighlights;
+
+    // Indeks widoku: pole -> obrazek figury, bez przeszukiwania dzieci GridPane (figury zna GameStateManager)
+    private final ImageView[] pieceNodes = new ImageView[64];
+
+    // Figury każdego koloru w osobnej warstwie - zmiana tury przełącza przezroczystość dla myszy całej warstwy
+    private final Group whitePieces = pieceLayer();
+    private final Group blackPieces = pieceLayer();
 
     public FigureManager(GameStateManager gameStateManager, GridPane gridPane) {
         this.gameStateManager = gameStateManager;
         this.gridPane = gridPane;
+
+        for (int square = 0; square < highlightCells.length; square++) {
+            Rectangle cell = new Rectangle(TILE_SIZE, TILE_SIZE);
+            cell.setFill(Color.TRANSPARENT); // Zmiana wypełnienia to samo przerysowanie, bez przeliczania układu siatki
+            cell.setMouseTransparent(true); // Nie blokują myszy
+            cell.setViewOrder(-1); // Zawsze nad polami i figurami, niezależnie od kolejności dodania
+            gridPane.add(cell, square & 7, square >>> 3);
+            highlightCells[square] = cell;
+
+            Text label = new Text();
+            label.setMouseTransparent(true);
+            label.setViewOrder(-1);
+            gridPane.add(label, square & 7, square >>> 3);
+            bookLabels[square] = label;
+        }
+
+        gridPane.add(whitePieces, 0, 0, GRID_SIZE, GRID_SIZE);
+        gridPane.add(blackPieces, 0, 0, GRID_SIZE, GRID_SIZE);
+        gameStateManager.addListener(this);
+    }
+
+    // Warstwa o stałym rozmiarze planszy; puste miejsca przepuszczają mysz do pól pod spodem
+    private static Group pieceLayer() {
+        Rectangle bounds = new Rectangle(GRID_SIZE * TILE_SIZE, GRID_SIZE * TILE_SIZE, Color.TRANSPARENT);
+        bounds.setMouseTransparent(true);
+        Group layer = new Group(bounds);
+        layer.setViewOrder(-0.5); // Nad polami, pod podświetleniami
+        return layer;
     }
 
     public ImageView addFigure(Figure figure, Position position) {
         ImageView imageView = figure.getImageView();
         figure.setupImageViewEvents(imageView);
-        gridPane.add(imageView, figure.getPosition().getX(), figure.getPosition().getY());
-        imageView.setMouseTransparent(figure.getColor() != currentTurn);
-        figures.add(figure);
-        figuresOld.put(figure.getPosition(), figure);
+        addFigureNode(imageView, figure.getPosition(), figure.getColor());
 
         return imageView;
     }
 
     public void setupDragNDropImageView(ImageView imageView, Position position) {
         imageView.setOnDragDetected(event -> {
+            long begin = Metrics.DRAG_DETECTED.start();
             Dragboard db = imageView.startDragAndDrop(TransferMode.MOVE);
             ClipboardContent content = new ClipboardContent();
             content.putImage(imageView.getImage());
             db.setContent(content);
 
             Figure figure = (Figure) imageView.getUserData();
-            List<Position> possibleMoves = gameStateManager.getPossibleMoves(figure);
-
-            highlightPossibleMoves(possibleMoves);
+            setLegalHighlights(gameStateManager.getPossibleTargets(figure));
 
             event.consume();
+            Metrics.DRAG_DETECTED.stop(begin);
         });
     
         imageView.setOnDragOver(event -> {
@@ -70,107 +113,154 @@ public class FigureManager {
         });
     
         imageView.setOnDragDone(event -> {
-            updateFigureInteractivity();
-            clearHighlights();
-
-            final Color red = new Color(1, 0, 0, 0.3);
-            final Figure figure = (Figure) imageView.getUserData();
-            final Optional<Position> kingPosition = gameStateManager.getKingCheckPosition(figure);
-
-            kingPosition.ifPresent(pos -> highlightPosition(pos, red));
-
-            if (figure.getColor() == gameStateManager.getCurrentTurn()) {
-                gameStateManager.toggleTurn();
-            }
+            setLegalHighlights(0); // Szach zaznacza ocena pozycji po ruchu
 
             event.consume();
         });
     }
 
-    private void updateFigureInteractivity() {
-        Map<Position, Figure> figures = new HashMap<>();
-        for (Node node : gridPane.getChildren()) {
-            if (node instanceof ImageView) {
-                Figure figure = (Figure) ((ImageView) node).getUserData();
-                if (figure == null) continue;
+    // Podświetla króla w szachu (null zdejmuje podświetlenie)
+    public void highlightCheck(Position king) {
+        setCheckHighlight((king == null) ? 0 : 1L << king.getSquare());
+    }
 
-                node.setMouseTransparent(figure.getColor() != gameStateManager.getCurrentTurn());
+    // Statystyki z bazy dla bieżącej pozycji (pusta lista zdejmuje je z planszy); kilka ruchów na to samo pole - kolejne linie
+    public void showBookMoves(List<PositionBook.Entry> entries) {
+        long squares = 0;
+        String[] labels = new String[64];
+        for (PositionBook.Entry entry : entries) {
+            int to = Move.to(entry.move);
+            labels[to] = (labels[to] == null) ? entry.label() : labels[to] + "\n" + entry.label();
+            squares |= 1L << to;
+        }
 
-                figures.put(figure.getPosition(), figure);
-            }
+        for (long changed = bookHighlights | squares; changed != 0; changed &= changed - 1) {
+            int square = Long.numberOfTrailingZeros(changed);
+            bookLabels[square].setText((labels[square] == null) ? "" : labels[square]);
         }
-        gameStateManager.initializeGame(figures);
+        long changed = bookHighlights ^ squares;
+        bookHighlights = squares;
+        refreshHighlights(changed);
+    }
+
+    // Aktywne tylko figury strony, która ma turę (i nie jest komputerem)
+    public void updateFigureInteractivity() {
+        whitePieces.setMouseTransparent(!gameStateManager.canMove(Color.WHITE));
+        blackPieces.setMouseTransparent(!gameStateManager.canMove(Color.BLACK));
+    }
+
+    @Override
+    public void figureMoved(Figure figure, Position from, Position to) {
+        ImageView node = pieceNodes[from.getSquare()];
+        if (node != null) moveFigureNode(node, to);
     }
 
-    public void moveFigure(Position oldPosition, Position newPosition) {
-        Figure figure = figuresOld.remove(oldPosition);
-        if (figure != null) {
-            figuresOld.put(newPosition, figure);
-            figure.setPosition(newPosition);
+    @Override
+    public void figureCaptured(Figure figure, Position position) {
+        captureFigure(position);
+    }
+
+    @Override
+    public void figurePromoted(Figure pawn, Figure promoted, Position position) {
+        captureFigure(position);
+        ImageView imageView = addFigure(promoted, position);
+        setupDragNDropImageView(imageView, position);
+    }
+
+    @Override
+    public void turnChanged(Color turn) {
+        updateFigureInteractivity();
+    }
+
+    public void clearFigures() {
+        clearHighlights();
+        highlightLastMove(null, null);
+        showBookMoves(List.of());
+        for (int square = 0; square < pieceNodes.length; square++) {
+            removeFigureNode(Position.of(square));
         }
     }
 
-    public Position getPositionOf(Figure figure) {
-        return figuresOld.entrySet().stream()
-                        .filter(entry -> entry.getValue().equals(figure))
-                        .map(Map.Entry::getKey)
-                        .findFirst()
-                        .orElse(null);  // Return null if figure is not found
+    public void captureFigure(Position position) {
+        removeFigureNode(position);  // Usuń zbitych
     }
 
-    public void removeFigure(Position position) {
-        figuresOld.remove(position);
+    public void addTile(Rectangle tile, Position position) {
+        gridPane.add(tile, position.getX(), position.getY());
     }
 
-    public Position getPositionFromImageView(ImageView imageView) {
-        int x = GridPane.getColumnIndex(imageView);
-        int y = GridPane.getRowIndex(imageView);
-        return new Position(x, y);
+    public void addFigureNode(ImageView imageView, Position position, Color color) {
+        ((color == Color.WHITE) ? whitePieces : blackPieces).getChildren().add(imageView);
+        imageView.setLayoutX(position.getX() * TILE_SIZE);
+        imageView.setLayoutY(position.getY() * TILE_SIZE);
+        pieceNodes[position.getSquare()] = imageView;
     }
 
-    public Figure getFigureAt(Position position) {
-        return figuresOld.get(position);
+    // Przesuwa obrazek w jego warstwie - bez zdejmowania go ze sceny
+    public void moveFigureNode(ImageView imageView, Position position) {
+        int oldSquare = getPositionFromImageView(imageView).getSquare();
+        if (pieceNodes[oldSquare] == imageView) pieceNodes[oldSquare] = null;
+
+        imageView.setLayoutX(position.getX() * TILE_SIZE);
+        imageView.setLayoutY(position.getY() * TILE_SIZE);
+        pieceNodes[position.getSquare()] = imageView;
     }
 
-    private void highlightPossibleMoves(List<Position> possibleMoves) {
-        clearHighlights(); // Usuwanie istniejących podświetleń
-        final Color highLightAllowed = new Color(0, 1, 0, 0.3); // przezroczysty zielony
-        for (Position pos : possibleMoves) {
-            highlightPosition(pos, highLightAllowed);
+    public void removeFigureNode(Position position) {
+        ImageView node = pieceNodes[position.getSquare()];
+        if (node != null) {
+            whitePieces.getChildren().remove(node);
+            blackPieces.getChildren().remove(node);
+            pieceNodes[position.getSquare()] = null;
         }
     }
 
-    private void highlightPosition(Position position, Color color) {
-        Rectangle highlightRect = new Rectangle(TILE_SIZE, TILE_SIZE);
-        highlightRect.setFill(color);  // przezroczysty kolor
-        highlightRect.setMouseTransparent(true); // Nie blokują myszy
+    public Position getPositionFromImageView(ImageView imageView) {
+        int x = (int) (imageView.getLayoutX() / TILE_SIZE);
+        int y = (int) (imageView.getLayoutY() / TILE_SIZE);
+        return Position.of(x, y);
+    }
+
+    // Ostatni ruch zostaje podświetlony do następnego; null zdejmuje podświetlenie
+    public void highlightLastMove(Position from, Position to) {
+        long squares = (from == null || to == null) ? 0 : (1L << from.getSquare()) | (1L << to.getSquare());
+        long changed = lastMoveHighlights ^ squares;
+        lastMoveHighlights = squares;
+        refreshHighlights(changed);
+    }
 
-        gridPane.add(highlightRect, position.getX(), position.getY());
-        activeHighlights.add(highlightRect);
+    private void setLegalHighlights(long squares) {
+        long changed = legalHighlights ^ squares;
+        legalHighlights = squares;
+        refreshHighlights(changed);
     }
 
+    private void setCheckHighlight(long squares) {
+        long changed = checkHighlight ^ squares;
+        checkHighlight = squares;
+        refreshHighlights(changed);
+    }
+
+    // Podświetlenia ruchów i szacha znikają, ostatni ruch zostaje
     public void clearHighlights() {
-        for (Rectangle rect : activeHighlights) {
-            gridPane.getChildren().remove(rect);
-        }
-        activeHighlights.clear();
+        setLegalHighlights(0);
+        setCheckHighlight(0);
     }
-    
-    public static Node getNode(GridPane gridPane, final int row, final int column) {
-        for (Node node : gridPane.getChildren()) {
-            if (GridPane.getRowIndex(node) == row && GridPane.getColumnIndex(node) == column) {
-                if (node instanceof ImageView) {
-                    return node; // Return ImageView if it exists at the position
-                }
-            }
-        }
-        // If no ImageView is found at the position, return any node (usually Rectangle)
-        for (Node node : gridPane.getChildren()) {
-            if (GridPane.getRowIndex(node) == row && GridPane.getColumnIndex(node) == column) {
-                return node;
-            }
+
+    // Dotyka tylko komórek, których stan się zmienił; kolejność: szach, legalne ruchy, ruchy z bazy, ostatni ruch
+    private void refreshHighlights(long squares) {
+        for (; squares != 0; squares &= squares - 1) {
+            int square = Long.numberOfTrailingZeros(squares);
+            long bit = 1L << square;
+            Rectangle cell = highlightCells[square];
+
+            Color color = ((checkHighlight & bit) != 0) ? CHECK_COLOR
+                : ((legalHighlights & bit) != 0) ? LEGAL_COLOR
+                : ((bookHighlights & bit) != 0) ? BOOK_COLOR
+                : ((lastMoveHighlights & bit) != 0) ? LAST_MOVE_COLOR
+                : Color.TRANSPARENT;
+            cell.setFill(color);
         }
-        return null;
     }
 
 }
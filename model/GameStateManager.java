@@ -1,185 +1,373 @@
 package model;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.stream.Collectors;
-
-import javafx.scene.Node;
-import javafx.scene.image.ImageView;
-import javafx.scene.layout.GridPane;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import engine.Board;
+import engine.Fen;
+import engine.Game;
+import engine.GameJournal;
+import engine.Metrics;
+import engine.Move;
+import engine.MoveGenerator;
+import engine.ParallelSearch;
+import engine.PositionBook;
+import engine.Search;
+import engine.TranspositionTable;
+import javafx.application.Platform;
 import javafx.scene.paint.Color;
-import lib.figures.King;
 import lib.interfaces.Figure;
+import lib.logic.FigureFactory;
 import lib.logic.Position;
 
+// Adapter między figurami z widoku a silnikiem reguł (engine.Game), który nie zna JavaFX
 public class GameStateManager {
-    private Map<Position, Figure> figures = new HashMap<>();
-    private GridPane gridPane;
-    private Color currentTurn = Color.WHITE;
-    private boolean gameOver = false;
+    // Zdarzenia ruchu dla widoku: model jest źródłem prawdy, widok nanosi tylko zmienione pola.
+    // Roszada to dwa zdarzenia figureMoved (król i wieża), bicie w przelocie zgłasza pole zbitego piona.
+    public interface Listener {
+        void figureMoved(Figure figure, Position from, Position to);
+
+        void figureCaptured(Figure figure, Position position);
+
+        void figurePromoted(Figure pawn, Figure promoted, Position position);
+
+        void turnChanged(Color turn);
+    }
+
+    // Wynik oceny pozycji po ruchu: czy strona na ruchu jest w szachu lub macie, gdzie stoi jej król
+    // i co grano dalej w partiach z bazy pozycji (pusta lista - brak bazy lub pozycji w bazie)
+    public static final class Status {
+        public final Color turn;
+        public final boolean check;
+        public final boolean checkmate;
+        public final Position king;
+        public final List<PositionBook.Entry> book;
+
+        Status(Color turn, boolean check, boolean checkmate, Position king, List<PositionBook.Entry> book) {
+            this.turn = turn;
+            this.check = check;
+            this.checkmate = checkmate;
+            this.king = king;
+            this.book = book;
+        }
+    }
 
-    public GameStateManager(GridPane gridPane) {
-        this.gridPane = gridPane;
+    private static final int SEARCH_HASH_MB = 32;
+    private static final String[] FIGURE_NAMES = {"Pawn", "Knight", "Bishop", "Rook", "Queen", "King"};
+
+    private final Game game = new Game();
+    private final Figure[] figures = new Figure[64];
+    private final TranspositionTable table = new TranspositionTable(SEARCH_HASH_MB);
+    private ParallelSearch search = new ParallelSearch(table, 1);
+    private Color computerSide; // null - grają dwie osoby
+    private final List<Listener> listeners = new ArrayList<>();
+
+    // Dziennik partii (null - bez zapisu); nowa partia zaczyna się przy pierwszym ruchu po wczytaniu pozycji
+    private GameJournal journal;
+    private int journalGame = -1;
+    private volatile PositionBook positionBook; // Baza pozycji (null - bez statystyk ruchów)
+
+    // Ocena szacha i mata na kopii planszy w tle; wynik wraca do wątku JavaFX, nieaktualne są odrzucane
+    private final ExecutorService evaluator = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "rule-evaluator");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Future<?> pendingEvaluation;
+    private long evaluationGeneration; // Zmieniane tylko w wątku JavaFX
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void setPositionBook(PositionBook positionBook) {
+        this.positionBook = positionBook;
+    }
+
+    public void setJournal(GameJournal journal) {
+        this.journal = journal;
+        this.journalGame = -1;
     }
 
     public void initializeGame(Map<Position, Figure> initialSetup) {
-        if (!figures.isEmpty()) figures.clear();
-        figures.putAll(initialSetup);
+        Board board = game.getBoard();
+        int sideToMove = board.getSideToMove();
+        int enPassantSquare = board.getEnPassantSquare();
+        int halfmoveClock = board.getHalfmoveClock();
+        int fullmoveNumber = board.getFullmoveNumber();
+        board.clear();
+        Arrays.fill(figures, null);
+
+        for (Map.Entry<Position, Figure> entry : initialSetup.entrySet()) {
+            Figure figure = entry.getValue();
+            int square = entry.getKey().getSquare();
+            board.put(figure.getSide(), figure.getType(), square);
+            figures[square] = figure;
+        }
+
+        board.setSideToMove(sideToMove);
+        board.setCastlingRights(deriveCastlingRights());
+        board.setEnPassantSquare(enPassantSquare);
+        board.setHalfmoveClock(halfmoveClock);
+        board.setFullmoveNumber(fullmoveNumber);
     }
 
-    public boolean isMoveAllowed(Figure figure, Position newPosition) {
-        // First check if it's the turn of the figure's color
-        if (figure.getColor() != currentTurn) {
-            return false;
+    // Wczytuje pozycję z FEN-a i tworzy dla niej figury; król i wieże bez prawa do roszady są oznaczane jako ruszone
+    public Map<Position, Figure> loadFen(String fen) {
+        Board board = game.getBoard();
+        Fen.load(board, fen);
+        game.setGameOver(false);
+        journalGame = -1;
+        Arrays.fill(figures, null);
+
+        Map<Position, Figure> setup = new HashMap<>();
+        for (long occupied = board.occupied(); occupied != 0; occupied &= occupied - 1) {
+            int square = Long.numberOfTrailingZeros(occupied);
+            int piece = board.pieceAt(square);
+            Position position = Position.of(square);
+            Color color = (Board.colorOf(piece) == Board.WHITE) ? Color.WHITE : Color.BLACK;
+
+            Figure figure = FigureFactory.createFigure(FIGURE_NAMES[Board.typeOf(piece)], position, color);
+            figure.setMoved(!keepsCastlingRight(board, Board.typeOf(piece), square));
+            figures[square] = figure;
+            setup.put(position, figure);
         }
+        return setup;
+    }
 
-        // Retrieve possible moves for the figure
-        List<Position> possibleMoves = getPossibleMoves(figure);
+    private static boolean keepsCastlingRight(Board board, int type, int square) {
+        switch (type) {
+            case Board.KING:
+                return (square == 4 && board.hasCastlingRight(Board.WHITE_KING_SIDE | Board.WHITE_QUEEN_SIDE))
+                    || (square == 60 && board.hasCastlingRight(Board.BLACK_KING_SIDE | Board.BLACK_QUEEN_SIDE));
+            case Board.ROOK:
+                return (square == 7 && board.hasCastlingRight(Board.WHITE_KING_SIDE))
+                    || (square == 0 && board.hasCastlingRight(Board.WHITE_QUEEN_SIDE))
+                    || (square == 63 && board.hasCastlingRight(Board.BLACK_KING_SIDE))
+                    || (square == 56 && board.hasCastlingRight(Board.BLACK_QUEEN_SIDE));
+            default:
+                return true; // Pozostałe figury: "ruszona" nie ma znaczenia dla reguł
+        }
+    }
 
-        // Check if the new position is within the possible moves
-        return possibleMoves.contains(newPosition);
+    // Plansza silnika jest źródłem prawdy - prawa do roszady pochodzą z FEN-a albo z ruchów wykonanych przez silnik
+    public String toFen() {
+        return Fen.toFen(game.getBoard());
     }
 
-    public void captureFigure(Position position) {
-        figures.remove(position); // Usuń figurę z mapy
-        Node targetNode = FigureManager.getNode(gridPane, position.getY(), position.getX());
-        if (targetNode instanceof ImageView) {
-            gridPane.getChildren().remove(targetNode);  // Usuń zbitych
+    // Tylko przy ustawianiu planszy z figur (initializeGame): prawo do roszady z tego, czy król i wieża są nieruszone
+    private int deriveCastlingRights() {
+        int rights = 0;
+        if (isUnmoved(4, Board.KING, Board.WHITE)) {
+            if (isUnmoved(7, Board.ROOK, Board.WHITE)) rights |= Board.WHITE_KING_SIDE;
+            if (isUnmoved(0, Board.ROOK, Board.WHITE)) rights |= Board.WHITE_QUEEN_SIDE;
         }
+        if (isUnmoved(60, Board.KING, Board.BLACK)) {
+            if (isUnmoved(63, Board.ROOK, Board.BLACK)) rights |= Board.BLACK_KING_SIDE;
+            if (isUnmoved(56, Board.ROOK, Board.BLACK)) rights |= Board.BLACK_QUEEN_SIDE;
+        }
+        return rights;
+    }
+
+    private boolean isUnmoved(int square, int type, int side) {
+        Figure figure = figures[square];
+        return figure != null && figure.getType() == type && figure.getSide() == side && !figure.hasMoved();
+    }
+
+    public boolean isMoveAllowed(Figure figure, Position newPosition) {
+        // First check if it's the turn of the figure's color
+        if (figure.getSide() != game.getSideToMove()) {
+            return false;
+        }
+
+        return game.isMoveAllowed(figure.getSquare(), newPosition.getSquare());
     }
 
     public boolean executeMove(Figure figure, Position startPosition, Position endPosition) {
         if (isMoveAllowed(figure, endPosition)) {
-            figures.remove(startPosition);  // Remove from old position
-            
-            // Check if there is a capture
-            if (figures.containsKey(endPosition)) {
-                captureFigure(endPosition);
+            int from = startPosition.getSquare();
+            int to = endPosition.getSquare();
+            String startFen = (journal != null && journalGame < 0) ? Fen.toFen(game.getBoard()) : null;
+
+            int move = game.executeMove(from, to);  // Silnik przesuwa też wieżę przy roszadzie i zdejmuje piona bitego w przelocie
+            int capturedSquare = Move.isEnPassant(move) ? Board.square(Board.file(to), Board.rank(from)) : to;
+            Figure captured = figures[capturedSquare];
+            if (captured != null) {
+                figures[capturedSquare] = null;
+                for (Listener listener : listeners) listener.figureCaptured(captured, Position.fromSquare(capturedSquare));
             }
 
+            if (Move.isCastling(move)) {
+                int rookFrom = (to > from) ? from + 3 : from - 4;
+                int rookTo = (to > from) ? from + 1 : from - 1;
+                Figure rook = figures[rookFrom];
+                figures[rookFrom] = null;
+                figures[rookTo] = rook;
+                if (rook != null) {
+                    rook.setPosition(Position.fromSquare(rookTo));
+                    rook.setMoved(true);
+                    for (Listener listener : listeners) listener.figureMoved(rook, Position.fromSquare(rookFrom), Position.fromSquare(rookTo));
+                }
+            }
 
-            figures.remove(startPosition);
-            figures.put(endPosition, figure);  // Move to new position
+            figures[from] = null;
+            figures[to] = figure;  // Move to new position
             figure.setPosition(endPosition);  // Update figure's position
+            figure.setMoved(true);
+            for (Listener listener : listeners) listener.figureMoved(figure, startPosition, endPosition);
+            record(startFen, move);
 
+            Color turn = getCurrentTurn();
+            for (Listener listener : listeners) listener.turnChanged(turn);
             return true;
         }
 
         return false;
     }
 
-    public boolean checkForCheckmate(Color kingColor, Figure fig, Position newPosition) {
-        if (!isKingInCheck(kingColor)) {
-            return false; // Król nie jest w szachu
-        }
+    public void promote(Figure newFigure, Position position) {
+        int square = position.getSquare();
+        Board board = game.getBoard();
+        board.remove(square);
+        board.put(newFigure.getSide(), newFigure.getType(), square);
+        Figure pawn = figures[square];
+        figures[square] = newFigure;
+        if (journal != null && journalGame >= 0) journal.setLastPromotion(newFigure.getType());
+        for (Listener listener : listeners) listener.figurePromoted(pawn, newFigure, position);
+    }
 
+    // Błąd zapisu dziennika nie przerywa gry - zapis zostaje wyłączony
+    private void record(String startFen, int move) {
+        if (journal == null) return;
+        try {
+            if (journalGame < 0) journalGame = journal.startGame(startFen);
+            journal.append(move);
+        } catch (IOException e) {
+            System.err.println("Game journal disabled: " + e.getMessage());
+            journal = null;
+        }
+    }
 
-        figures.remove(fig.getPosition());
-        figures.put(newPosition, fig);
-
-        ArrayList<Figure> figuresList = figures.values().stream()
-                                        .filter(figure -> figure.getColor() == kingColor)
-                                        .collect(Collectors.toCollection(ArrayList::new));
-    
-        for (Figure figure : figuresList) {
-            List<Position> possibleMoves = getPossibleMoves(figure);
-            Position originalPosition = figure.getPosition();
-
-            for (Position move : possibleMoves) {
-                if (originalPosition.equals(move)) continue;
-
-                // Symulacja ruchu
-                Figure capturedFigure = figures.remove(originalPosition);
-
-                if (capturedFigure != null) {
-                    figures.put(move, figure);
-                    figure.setPosition(move);
-    
-                    boolean stillInCheck = isKingInCheck(kingColor);
-    
-                    // Cofnięcie ruchu
-                    figures.remove(move);
-                    figures.put(originalPosition, figure);
-                    figure.setPosition(originalPosition);
-
-                    if (!stillInCheck) {
-                        return false; // Znaleziono ruch, który eliminuje szach
-                    }
-                }
-            }
+    // Tylko ruchy legalne jako maska pól: figury strony, która nie ma ruchu, nie mają dokąd pójść
+    public long getPossibleTargets(Figure figure) {
+        if (figure.getSide() != game.getSideToMove()) {
+            return 0L;
         }
+        return game.getTargets(figure.getSquare());
+    }
 
-        return true; // Brak ruchu eliminującego szach: szach mat
+    public Figure getFigureAt(Position position) {
+        return figures[position.getSquare()];
     }
 
-    public boolean isMoveValid(Figure figure, Position endPosition) {
-        // Example: Just check if endPosition is within bounds (you will replace this with real rules)
-        return endPosition.getX() >= 0 && endPosition.getX() < 8 &&
-                endPosition.getY() >= 0 && endPosition.getY() < 8;
+    // Wołane z wątku JavaFX po ruchu; poprzednia, jeszcze niedokończona ocena jest anulowana.
+    // Mat ustawia koniec gry zanim wynik trafi do onResult - komunikat o końcu pokazuje widok (Status.checkmate).
+    public void evaluatePosition(Consumer<Status> onResult) {
+        cancelEvaluation();
+        long generation = evaluationGeneration;
+        Board position = snapshot();
+        PositionBook book = positionBook;
+
+        pendingEvaluation = evaluator.submit(() -> {
+            Status status = evaluate(position, book);
+            if (Thread.currentThread().isInterrupted()) return;
+
+            Platform.runLater(() -> {
+                if (generation != evaluationGeneration) return; // W międzyczasie padł kolejny ruch
+                if (status.checkmate) game.setGameOver(true);
+                onResult.accept(status);
+            });
+        });
     }
 
-    public boolean isKingInCheck(Color kingColor) {
-        Position kingPosition = getKingPosition(kingColor);
-        ArrayList<Figure> enemyFigures = figures.values().stream()
-                                        .filter(figure -> figure.getColor() != kingColor)
-                                        .collect(Collectors.toCollection(ArrayList::new));
+    public void cancelEvaluation() {
+        evaluationGeneration++;
+        if (pendingEvaluation != null) {
+            pendingEvaluation.cancel(true);
+            pendingEvaluation = null;
+        }
+    }
 
-        for (Figure enemyFigure : enemyFigures) {
-            List<Position> possibleMoves = getPossibleMoves(enemyFigure);
-            if (possibleMoves.contains(kingPosition)) {
-                return true; // Król jest w szachu
-            }
+    private static Status evaluate(Board board, PositionBook book) {
+        long begin = Metrics.POSITION_EVALUATION.start();
+        int side = board.getSideToMove();
+        Color turn = (side == Board.WHITE) ? Color.WHITE : Color.BLACK;
+        long checkBegin = Metrics.KING_IN_CHECK.start();
+        boolean check = board.isKingInCheck(side);
+        Metrics.KING_IN_CHECK.stop(checkBegin);
+        // Mat to szach przy braku legalnych ruchów
+        boolean checkmate = false;
+        if (check) {
+            long checkmateBegin = Metrics.CHECKMATE.start();
+            checkmate = MoveGenerator.legalMoves(board).isEmpty();
+            Metrics.CHECKMATE.stop(checkmateBegin);
         }
+        Position king = check ? Position.fromSquare(board.kingSquare(side)) : null;
+        List<PositionBook.Entry> bookMoves = (book == null) ? Collections.emptyList() : book.lookup(board);
+        Metrics.POSITION_EVALUATION.stop(begin);
+        return new Status(turn, check, checkmate, king, bookMoves);
+    }
 
-        return false;
+    public void toggleTurn() {
+        game.toggleTurn();
+    }
+
+    public boolean isGameOver() {
+        return game.isGameOver();
     }
 
-    public List<Position> getPossibleMoves(Figure figure) {
-        return figure.getPossibleMoves(figures);
+    public void setGameOver(boolean gameOver) {
+        game.setGameOver(gameOver);
     }
 
-    public Position getKingPosition(Color kingColor) {
-        for (Map.Entry<Position, Figure> entry : figures.entrySet()) {
-            if (entry.getValue() instanceof King && entry.getValue().getColor() == kingColor) {
-                return entry.getKey();
-            }
-        }
-        return null; // Powinno rzucić wyjątek, jeśli król nie został znaleziony
+    public Color getCurrentTurn() {
+        return (game.getSideToMove() == Board.WHITE) ? Color.WHITE : Color.BLACK;
     }
 
-    public Optional<Position> getKingCheckPosition(Figure figure) {
-        final Color diffColor = (figure.getColor() == Color.WHITE) ? Color.BLACK : Color.WHITE;
-        final Position kingPosition = isKingInCheck(diffColor) ? getKingPosition(diffColor) : null;
+    public Game getGame() {
+        return game;
+    }
 
-        return Optional.ofNullable(kingPosition);
+    public Color getComputerSide() {
+        return computerSide;
     }
 
-    public boolean checkGameOver(Figure figure, Position position) {
-        if (checkForCheckmate(currentTurn, figure, position)) {
-            gameOver = true;
-            System.out.println((currentTurn == Color.WHITE ? "Białe" : "Czarne") + " jest w szach-mat! Koniec gry.");
-            return true;
-        }
+    public void setComputerSide(Color computerSide) {
+        this.computerSide = computerSide;
+    }
 
-        return false;
+    public boolean isComputerTurn() {
+        return computerSide != null && computerSide == getCurrentTurn() && !isGameOver();
     }
 
-    public void toggleTurn() {
-        currentTurn = (currentTurn == Color.WHITE) ? Color.BLACK : Color.WHITE;
+    // Gracz może przeciągać tylko swoje figury i tylko w swojej turze
+    public boolean canMove(Color color) {
+        return color == getCurrentTurn() && color != computerSide;
     }
 
-    public boolean isGameOver() {
-        return gameOver;
+    // Kopia planszy, na której komputer może liczyć poza wątkiem JavaFX
+    public Board snapshot() {
+        Board copy = new Board();
+        copy.copyFrom(game.getBoard());
+        return copy;
     }
 
-    public void setGameOver(boolean gameOver) {
-        this.gameOver = gameOver;
+    // Liczba wątków, którymi liczy komputer (1 - bez puli wątków)
+    public void setSearchThreads(int threads) {
+        search.shutdown();
+        search = new ParallelSearch(table, threads);
     }
 
-    public Color getCurrentTurn() {
-        return currentTurn;
+    public int findComputerMove(Board position, long timeMillis) {
+        return search.search(position, Search.MAX_PLY, timeMillis, 0);
     }
 }
@@ -1,23 +1,111 @@
 package src;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
 import controller.BoardController;
+import controller.CanvasBoardController;
+import engine.GameJournal;
+import engine.PositionBook;
 import javafx.application.Application;
+import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 
+// Okno gry; uruchamiane przez src.Launcher (java src.Launcher [opcje])
 public class Chess extends Application {
+    private static final long DEFAULT_THINK_MILLIS = 1000;
+
+    private GameJournal journal;
+    private PositionBook positionBook;
+    private Supplier<String> exportPosition; // Tylko z --print-fen
 
     @Override
     public void start(Stage primaryStage) {
-        BoardController board = new BoardController();
-        Scene scene = new Scene(board.getGridPane());
+        // Opcjonalnie: --computer white|black [--think ms] [--threads n] - komputer gra wybranym kolorem,
+        // --fen "<pozycja>" - gra zaczyna się od podanej pozycji, --canvas - plansza rysowana na jednym Canvasie,
+        // --journal <plik> - rozegrane ruchy dopisywane do dziennika partii (odczyt: java engine.GameJournal <plik>),
+        // --book <plik> - statystyki ruchów z bazy pozycji (budowa: java engine.PositionBook build ...),
+        // --print-fen - po zamknięciu okna FEN końcowej pozycji na stdout
+        List<String> args = getParameters().getRaw();
+        Color computerSide = null;
+        long thinkMillis = DEFAULT_THINK_MILLIS;
+        int threads = 1;
+        String fen = null;
+        for (int i = 0; i + 1 < args.size(); i++) {
+            if (args.get(i).equals("--computer")) {
+                computerSide = args.get(i + 1).equalsIgnoreCase("white") ? Color.WHITE : Color.BLACK;
+            } else if (args.get(i).equals("--think")) {
+                thinkMillis = Long.parseLong(args.get(i + 1));
+            } else if (args.get(i).equals("--threads")) {
+                threads = Integer.parseInt(args.get(i + 1));
+            } else if (args.get(i).equals("--fen")) {
+                fen = args.get(i + 1);
+            } else if (args.get(i).equals("--journal")) {
+                openJournal(args.get(i + 1));
+            } else if (args.get(i).equals("--book")) {
+                openPositionBook(args.get(i + 1));
+            }
+        }
+
+        Parent root;
+        if (args.contains("--canvas")) {
+            CanvasBoardController board = new CanvasBoardController(computerSide, thinkMillis, threads);
+            board.setJournal(journal);
+            board.setPositionBook(positionBook);
+            if (fen != null) loadPosition(board::loadPosition, fen);
+            if (args.contains("--print-fen")) exportPosition = board::exportPosition;
+            board.start();
+            root = board.getView();
+        } else {
+            BoardController board = new BoardController(computerSide, thinkMillis, threads);
+            board.setJournal(journal);
+            board.setPositionBook(positionBook);
+            if (fen != null) loadPosition(board::loadPosition, fen);
+            if (args.contains("--print-fen")) exportPosition = board::exportPosition;
+            board.start();
+            root = board.getGridPane();
+        }
+        Scene scene = new Scene(root);
 
         primaryStage.setTitle("Chess");
         primaryStage.setScene(scene);
         primaryStage.show();
     }
 
-    public static void main(String[] args) {
-        launch(args);
+    // Błędny FEN nie zmienia planszy - gra zaczyna się wtedy od pozycji początkowej
+    private static void loadPosition(Consumer<String> load, String fen) {
+        try {
+            load.accept(fen);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Cannot load position " + fen + ": " + e.getMessage() + " - using the initial position");
+        }
+    }
+
+    private void openJournal(String path) {
+        try {
+            journal = GameJournal.open(Paths.get(path));
+        } catch (IOException e) {
+            System.err.println("Cannot open game journal " + path + ": " + e.getMessage());
+        }
+    }
+
+    private void openPositionBook(String path) {
+        try {
+            positionBook = PositionBook.open(Paths.get(path));
+        } catch (IOException e) {
+            System.err.println("Cannot open position book " + path + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void stop() throws IOException {
+        if (exportPosition != null) System.out.println(exportPosition.get());
+        if (journal != null) journal.close();
+        if (positionBook != null) positionBook.close();
     }
 }
@@ -0,0 +1,29 @@
+package src;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import engine.Uci;
+import javafx.application.Application;
+
+// Punkt wejścia: klasa bez JavaFX, więc tryb UCI działa bez okna, wyświetlacza i bibliotek JavaFX.
+// Klasa dziedzicząca po Application (Chess) uruchomiona wprost startuje JavaFX, zanim main w ogóle ruszy.
+//   --uci: silnik rozmawia z GUI szachowym przez stdin/stdout
+//   --metrics: pomiary (JFR, JMX, zrzut na stderr) - ustawiane, zanim silnik wczyta klasę Metrics
+// Pozostałe opcje trafiają do okna gry (Chess).
+public class Launcher {
+    private Launcher() {
+        throw new AssertionError("Just Helper!");
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (Arrays.asList(args).contains("--metrics")) {
+            System.setProperty("chess.metrics", "true");
+        }
+        if (Arrays.asList(args).contains("--uci")) {
+            new Uci(System.in, System.out).run();
+            return;
+        }
+        Application.launch(Chess.class, args);
+    }
+}